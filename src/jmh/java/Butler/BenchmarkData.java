@@ -0,0 +1,136 @@
+package Butler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generates reproducible task lists and task files for the benchmarks.
+ * <p>
+ * The mix is half todos, a quarter deadlines and a quarter one-to-three hour
+ * events spread over a few years, with about a third of tasks marked done.
+ * Descriptions are two to five words from a small vocabulary, so a keyword
+ * such as {@link #RARE_WORD} matches roughly one task in a hundred.
+ */
+public final class BenchmarkData {
+    /** Seed used unless a benchmark asks for another one. */
+    public static final long DEFAULT_SEED = 42;
+
+    /** A word that appears in about one percent of generated descriptions. */
+    public static final String RARE_WORD = "quarterly";
+
+    private static final String[] WORDS = {
+        "read", "book", "return", "buy", "groceries", "call", "mum", "project", "meeting",
+        "submit", "report", "draft", "email", "review", "code", "plan", "trip", "pay",
+        "rent", "clean", "room", "gym", "session", "team", "lunch", "fix", "bike",
+    };
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final int SPAN_DAYS = 3 * 365;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates {@code n} tasks.
+     *
+     * @param n    the number of tasks
+     * @param seed the random seed; the same seed always gives the same tasks
+     * @return the generated tasks
+     */
+    public static ArrayList<Task> tasks(int n, long seed) {
+        Random rnd = new Random(seed);
+        ArrayList<Task> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(task(rnd));
+        }
+        return out;
+    }
+
+    /**
+     * Generates one task.
+     *
+     * @param rnd the source of randomness
+     * @return the generated task
+     */
+    public static Task task(Random rnd) {
+        String description = description(rnd);
+        Task t;
+        int kind = rnd.nextInt(4);
+        if (kind < 2) {
+            t = new Todo(description);
+        } else if (kind == 2) {
+            t = new Deadline(description, date(rnd));
+        } else {
+            LocalDateTime from = date(rnd).atTime(8 + rnd.nextInt(10), rnd.nextBoolean() ? 0 : 30);
+            t = new Event(description, from, from.plusHours(1 + rnd.nextInt(3)));
+        }
+        if (rnd.nextInt(3) == 0) {
+            t.mark();
+        }
+        return t;
+    }
+
+    /**
+     * Generates a task description.
+     *
+     * @param rnd the source of randomness
+     * @return two to five words separated by spaces
+     */
+    public static String description(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        int words = 2 + rnd.nextInt(4);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(w == 0 && rnd.nextInt(100) == 0 ? RARE_WORD : WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates a date within the generated data's three-year span.
+     *
+     * @param rnd the source of randomness
+     * @return the date
+     */
+    public static LocalDate date(Random rnd) {
+        return START.plusDays(rnd.nextInt(SPAN_DAYS));
+    }
+
+    /**
+     * Writes {@code n} generated tasks to a fresh task file in {@code dir}.
+     *
+     * @param dir  the directory to create the file in
+     * @param n    the number of tasks
+     * @param seed the random seed
+     * @return the path of the task file
+     * @throws IOException if the directory cannot be created
+     */
+    public static Path taskFile(Path dir, int n, long seed) throws IOException {
+        return taskFile(dir, n, seed, ".txt");
+    }
+
+    /**
+     * Writes {@code n} generated tasks to a fresh task file in {@code dir},
+     * in the format its extension selects.
+     *
+     * @param dir       the directory to create the file in
+     * @param n         the number of tasks
+     * @param seed      the random seed
+     * @param extension the file name ending, such as {@code .txt} or {@code .blk}
+     * @return the path of the task file
+     * @throws IOException if the directory cannot be created
+     */
+    public static Path taskFile(Path dir, int n, long seed, String extension) throws IOException {
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "tasks-" + n + "-", extension);
+        new Storage(file.toString()).save(tasks(n, seed));
+        return file;
+    }
+}
@@ -0,0 +1,130 @@
+package Butler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link Butler#getResponse(String)} end to end for each command,
+ * against a list of {@link #TASKS} generated tasks.
+ * <p>
+ * Most commands change the list, so each measurement is a single shot of
+ * {@link #BATCH} commands against a freshly loaded Butler; divide the reported
+ * time by {@code BATCH} for the per-command cost. Auto-save is off, so the
+ * numbers exclude disk writes ({@link StorageBenchmark#save} covers those).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = ButlerBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = ButlerBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ButlerBenchmark {
+    static final int BATCH = 1000;
+    private static final int TASKS = 1000;
+    /** Events are added after the generated data's span so that they never overlap it. */
+    private static final LocalDate FREE_DATES = LocalDate.of(2030, 1, 1);
+
+    @Param({ "list", "find", "todo", "deadline", "event", "mark", "unmark", "delete", "reschedule", "conflicts",
+            "sort" })
+    public String command;
+
+    private Path dir;
+    private Path taskFile;
+    private String[] lines;
+    private Butler butler;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("butler-command-bench");
+        // Enough tasks that a whole batch of deletes never empties the list.
+        taskFile = BenchmarkData.taskFile(dir, TASKS + BATCH, BenchmarkData.DEFAULT_SEED);
+        lines = commandLines(BenchmarkData.tasks(TASKS + BATCH, BenchmarkData.DEFAULT_SEED));
+    }
+
+    @Setup(Level.Iteration)
+    public void loadButler() {
+        butler = new Butler(taskFile.toString());
+        butler.setAutoSave(false);
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String getResponse() {
+        String line = lines[next];
+        next = (next + 1) % lines.length;
+        return butler.getResponse(line);
+    }
+
+    /** Builds one batch of input lines for {@link #command}, each valid against the generated list. */
+    private String[] commandLines(List<Task> tasks) {
+        List<Integer> deadlines = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i) instanceof Deadline) {
+                deadlines.add(i + 1);
+            }
+        }
+        String[] out = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            String day = FREE_DATES.plusDays(i).toString();
+            switch (command) {
+            case "find":
+                out[i] = "find book";
+                break;
+            case "todo":
+                out[i] = "todo benchmark task " + i;
+                break;
+            case "deadline":
+                out[i] = "deadline benchmark task " + i + " /by " + day;
+                break;
+            case "event":
+                out[i] = "event benchmark task " + i + " /from " + day + " 0900 /to " + day + " 1000";
+                break;
+            case "mark":
+            case "unmark":
+                out[i] = command + " " + (i % TASKS + 1);
+                break;
+            case "sort":
+                out[i] = "sort by:date";
+                break;
+            case "delete":
+                out[i] = "delete 1";
+                break;
+            case "reschedule":
+                out[i] = "reschedule " + deadlines.get(i % deadlines.size()) + " /by " + day;
+                break;
+            default:
+                out[i] = command;
+            }
+        }
+        return out;
+    }
+}
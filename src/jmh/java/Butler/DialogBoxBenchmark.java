@@ -0,0 +1,130 @@
+package Butler;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of rendering one Butler message bubble: building the
+ * dialog box and running CSS and layout on it, as happens when a message is
+ * appended to the conversation.
+ * <p>
+ * {@code fxmlBaseline} reproduces the previous approach of parsing the
+ * dialog box FXML for every message. Requires a JavaFX-capable environment
+ * (a display, or Monocle in headless mode).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DialogBoxBenchmark {
+    private static final String TEXT = "Got it. I've added this task:\n   [T][ ] read book\n"
+            + "Now you have 12 tasks in the list.";
+
+    /** The dialog box layout previously loaded from {@code /view/DialogBox.fxml}. */
+    private static final byte[] DIALOG_BOX_FXML = (
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<?import javafx.geometry.Insets?>\n"
+            + "<?import javafx.scene.control.Label?>\n"
+            + "<?import javafx.scene.image.ImageView?>\n"
+            + "<?import javafx.scene.layout.HBox?>\n"
+            + "<fx:root alignment=\"TOP_RIGHT\" maxHeight=\"1.7976931348623157E308\""
+            + " maxWidth=\"1.7976931348623157E308\" prefWidth=\"400.0\" type=\"javafx.scene.layout.HBox\""
+            + " xmlns=\"http://javafx.com/javafx/17\" xmlns:fx=\"http://javafx.com/fxml/1\">\n"
+            + "  <children>\n"
+            + "    <Label fx:id=\"dialog\" text=\"Label\" wrapText=\"true\" minHeight=\"-Infinity\"/>\n"
+            + "    <ImageView fx:id=\"displayPicture\" fitHeight=\"99.0\" fitWidth=\"99.0\""
+            + " pickOnBounds=\"true\" preserveRatio=\"true\" />\n"
+            + "  </children>\n"
+            + "  <padding><Insets bottom=\"15.0\" left=\"5.0\" right=\"5.0\" top=\"15.0\" /></padding>\n"
+            + "</fx:root>\n").getBytes(StandardCharsets.UTF_8);
+
+    private Image picture;
+    private Group root;
+
+    @Setup
+    public void setUp() {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException alreadyStarted) {
+            // toolkit already running in this JVM
+        }
+        picture = new Image(DialogBoxBenchmark.class.getResourceAsStream("/images/Butler.png"));
+        root = new Group();
+        new Scene(root);
+    }
+
+    @Benchmark
+    public Parent programmatic() {
+        return render(DialogBox.getButlerDialog(TEXT, picture));
+    }
+
+    @Benchmark
+    public Parent fxmlBaseline() {
+        return render(new FxmlDialogBox(TEXT, picture));
+    }
+
+    /** Attaches the node to an off-screen scene and runs CSS and layout, then detaches it. */
+    private Parent render(Parent box) {
+        root.getChildren().setAll(box);
+        box.applyCss();
+        box.layout();
+        root.getChildren().clear();
+        return box;
+    }
+
+    /** The former FXML-backed dialog box, including its list-copying flip. */
+    static final class FxmlDialogBox extends HBox {
+        @FXML
+        private Label dialog;
+        @FXML
+        private ImageView displayPicture;
+
+        FxmlDialogBox(String text, Image img) {
+            try {
+                FXMLLoader fxmlLoader = new FXMLLoader();
+                fxmlLoader.setController(this);
+                fxmlLoader.setRoot(this);
+                fxmlLoader.load(new ByteArrayInputStream(DIALOG_BOX_FXML));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            dialog.setText(text);
+            displayPicture.setImage(img);
+            ObservableList<Node> tmp = FXCollections.observableArrayList(getChildren());
+            Collections.reverse(tmp);
+            getChildren().setAll(tmp);
+            setAlignment(Pos.TOP_LEFT);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Butler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Drives {@link Butler#getResponse(String)} with a generated workload and
+ * reports throughput, latency percentiles per kind of command, heap growth
+ * and the size of the task file.
+ * <p>
+ * Usage (all options are optional):
+ * <pre>
+ * gradlew loadTest -PloadTestArgs="--duration 30 --seed 42 --target 10000
+ *     --mix add=30,mark=20,find=15,list=5,delete=20,reschedule=10
+ *     --dates uniform|clustered --vocabulary 200 --data build/loadtest/tasks.txt
+ *     --commands N --no-autosave"
+ * </pre>
+ * With {@code --commands} the run stops after that many commands instead of
+ * after {@code --duration} seconds, so two runs with the same seed execute
+ * exactly the same commands.
+ */
+public class LoadTest {
+    private static final String DEFAULT_MIX = "add=30,mark=20,find=15,list=5,delete=20,reschedule=10";
+    private static final long MB = 1024 * 1024;
+
+    private long seed = BenchmarkData.DEFAULT_SEED;
+    private long durationSeconds = 30;
+    private long commandLimit = Long.MAX_VALUE;
+    private int target = 10_000;
+    private String mix = DEFAULT_MIX;
+    private WorkloadGenerator.Dates dates = WorkloadGenerator.Dates.UNIFORM;
+    private int vocabulary = 200;
+    private Path data = Paths.get("build", "loadtest", "tasks.txt");
+    private boolean autoSave = true;
+
+    public static void main(String[] args) throws IOException {
+        LoadTest test = new LoadTest();
+        try {
+            test.parseArgs(args);
+        } catch (RuntimeException e) {
+            System.err.println("Bad arguments: " + e.getMessage());
+            System.exit(2);
+        }
+        System.out.println(test.run());
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--seed":
+                seed = Long.parseLong(args[++i]);
+                break;
+            case "--duration":
+                durationSeconds = Long.parseLong(args[++i]);
+                break;
+            case "--commands":
+                commandLimit = Long.parseLong(args[++i]);
+                break;
+            case "--target":
+                target = Integer.parseInt(args[++i]);
+                break;
+            case "--mix":
+                mix = args[++i];
+                break;
+            case "--dates":
+                dates = WorkloadGenerator.Dates.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                break;
+            case "--vocabulary":
+                vocabulary = Integer.parseInt(args[++i]);
+                break;
+            case "--data":
+                data = Paths.get(args[++i]);
+                break;
+            case "--no-autosave":
+                autoSave = false;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Runs the workload against a fresh task file and describes the results.
+     *
+     * @return the report
+     * @throws IOException if the old task file cannot be removed
+     */
+    String run() throws IOException {
+        Files.deleteIfExists(data);
+        WorkloadGenerator workload = new WorkloadGenerator(seed, WorkloadGenerator.parseMix(mix), target,
+                dates, vocabulary);
+        Map<WorkloadGenerator.Kind, LatencyHistogram> latency = new EnumMap<>(WorkloadGenerator.Kind.class);
+        for (WorkloadGenerator.Kind k : WorkloadGenerator.Kind.values()) {
+            latency.put(k, new LatencyHistogram());
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        Butler butler = new Butler(data.toString());
+        butler.setAutoSave(autoSave);
+        long start = System.nanoTime();
+        long deadline = start + durationSeconds * 1_000_000_000L;
+        long executed = 0;
+        long errors = 0;
+        long now = start;
+        while (executed < commandLimit && (commandLimit != Long.MAX_VALUE || now < deadline)) {
+            String line = workload.next();
+            long before = System.nanoTime();
+            String response = butler.getResponse(line);
+            now = System.nanoTime();
+            latency.get(workload.lastKind()).record(now - before);
+            if (response.startsWith("⚠")) {
+                errors++;
+            }
+            executed++;
+        }
+        butler.flush();
+        double seconds = (now - start) / 1e9;
+
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Load test: seed %d, mix %s, target %d tasks, %s dates, %d words, auto-save %s%n",
+                seed, mix, target, dates.name().toLowerCase(Locale.ROOT), vocabulary, autoSave ? "on" : "off"));
+        sb.append(String.format("Commands: %d in %.1f s (%.0f/s), %d errors%n",
+                executed, seconds, executed / seconds, errors));
+        sb.append(String.format("%-11s %10s %10s %10s %10s %10s%n", "kind", "count", "p50", "p99", "p99.9", "max"));
+        for (Map.Entry<WorkloadGenerator.Kind, LatencyHistogram> e : latency.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (h.count() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-11s %10d %10s %10s %10s %10s%n",
+                    e.getKey().name().toLowerCase(Locale.ROOT), h.count(),
+                    CommandMetrics.formatNanos(h.percentile(50)), CommandMetrics.formatNanos(h.percentile(99)),
+                    CommandMetrics.formatNanos(h.percentile(99.9)), CommandMetrics.formatNanos(h.max())));
+        }
+        sb.append(String.format("Heap: %d MB before, %d MB after (%+d MB)%n",
+                heapBefore / MB, heapAfter / MB, (heapAfter - heapBefore) / MB));
+        long fileBytes = Files.exists(data) ? Files.size(data) : 0;
+        sb.append(String.format("Task file: %d tasks, %d bytes", workload.expectedTasks(), fileBytes));
+        return sb.toString();
+    }
+}
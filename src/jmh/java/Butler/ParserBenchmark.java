@@ -0,0 +1,78 @@
+package Butler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Parser#parseLocalDateTime(String)} with the previous
+ * {@link DateTimeFormatter}-based implementation, on valid and invalid input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({ "2019-10-15T18:00", "2019-10-15 1800", "2019-10-15 18:00", "15/10/2019 6pm" })
+    public String input;
+
+    @Benchmark
+    public LocalDateTime fastPath() {
+        try {
+            return Parser.parseLocalDateTime(input);
+        } catch (ButlerException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public LocalDateTime fastPathNoThrow() {
+        return Parser.tryParseLocalDateTime(input);
+    }
+
+    @Benchmark
+    public LocalDateTime formatterBaseline() {
+        try {
+            return LegacyParser.parseLocalDateTime(input);
+        } catch (ButlerException e) {
+            return null;
+        }
+    }
+
+    /** The formatter-probing implementation that {@link Parser} used before the fast path. */
+    static final class LegacyParser {
+        private static final DateTimeFormatter F_YYYY_MM_DD_HHMM =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+        private static final DateTimeFormatter F_YYYY_MM_DD_HH_COLON_MM =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        static LocalDateTime parseLocalDateTime(String s) throws ButlerException {
+            try {
+                if (s.contains("T")) {
+                    return LocalDateTime.parse(s);
+                } else if (s.contains(":")) {
+                    return LocalDateTime.parse(s, F_YYYY_MM_DD_HH_COLON_MM);
+                } else {
+                    return LocalDateTime.parse(s, F_YYYY_MM_DD_HHMM);
+                }
+            } catch (DateTimeParseException e) {
+                throw new ButlerException("Please use datetime format 'yyyy-MM-dd HHmm' or ISO 'yyyy-MM-ddTHH:mm'.");
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package Butler;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connects thousands of simultaneous clients to an in-process
+ * {@link ButlerServer} and reports throughput and request latency.
+ * <p>
+ * Every client connects before any sends, then runs its commands one request
+ * at a time: mostly {@code find} for its own tasks, some {@code todo} and
+ * {@code mark}. With {@code --pipeline N} each client sends N commands
+ * before reading their responses, and latency is measured per round trip;
+ * {@code --nio} serves the clients with a {@link SelectorServer} instead.
+ * Usage:
+ * <pre>
+ * gradlew serverLoadTest -PloadTestArgs="--clients 2000 --requests 50 --seed 42 --autosave --pipeline 1 --nio"
+ * </pre>
+ */
+public class ServerLoadTest {
+    private int clients = 2000;
+    private int requests = 50;
+    private long seed = BenchmarkData.DEFAULT_SEED;
+    private boolean autoSave;
+    private int pipeline = 1;
+    private boolean nio;
+
+    public static void main(String[] args) throws Exception {
+        ServerLoadTest test = new ServerLoadTest();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--clients":
+                test.clients = Integer.parseInt(args[++i]);
+                break;
+            case "--requests":
+                test.requests = Integer.parseInt(args[++i]);
+                break;
+            case "--seed":
+                test.seed = Long.parseLong(args[++i]);
+                break;
+            case "--autosave":
+                test.autoSave = true;
+                break;
+            case "--pipeline":
+                test.pipeline = Integer.parseInt(args[++i]);
+                break;
+            case "--nio":
+                test.nio = true;
+                break;
+            default:
+                System.err.println("Unknown option " + args[i]);
+                System.exit(2);
+            }
+        }
+        System.out.println(test.run());
+    }
+
+    String run() throws Exception {
+        Path dir = Files.createTempDirectory("butler-server-load");
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+        butler.setAutoSave(autoSave);
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong answered = new AtomicLong();
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+
+        long elapsed;
+        SelectorServer selectorServer = nio ? new SelectorServer(butler, 0).start() : null;
+        ButlerServer threadServer = nio ? null : new ButlerServer(butler, 0).start();
+        Closeable server = nio ? selectorServer : threadServer;
+        try {
+            SocketAddress address = nio ? selectorServer.address() : threadServer.address();
+            List<Thread> threads = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                Random rnd = new Random(seed + c);
+                int client = c;
+                Thread t = new Thread(() -> {
+                    try (Socket s = new Socket()) {
+                        s.connect(address);
+                        connected.countDown();
+                        go.await();
+                        answered.addAndGet(runClient(s, client, rnd, latency));
+                    } catch (IOException | InterruptedException e) {
+                        errors.incrementAndGet();
+                        connected.countDown();
+                    }
+                }, "load-client-" + c);
+                t.setDaemon(true);
+                threads.add(t);
+                t.start();
+            }
+            connected.await();
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread t : threads) {
+                t.join();
+            }
+            elapsed = System.nanoTime() - start;
+        } finally {
+            server.close();
+        }
+
+        long total = answered.get();
+        double seconds = elapsed / 1e9;
+        return String.format("Server load test: %d clients x %d requests, seed %d, auto-save %s, %s, pipeline %d%n"
+                        + "Requests: %d in %.1f s (%.0f/s), %d failed clients%n"
+                        + "Round-trip latency: p50 %s, p99 %s, p99.9 %s, max %s",
+                clients, requests, seed, autoSave ? "on" : "off", nio ? "selector"
+                        : (Runtime.version().feature() >= 21 ? "virtual" : "platform") + " threads", pipeline,
+                total, seconds, total / seconds, errors.get(),
+                CommandMetrics.formatNanos(latency.percentile(50)), CommandMetrics.formatNanos(latency.percentile(99)),
+                CommandMetrics.formatNanos(latency.percentile(99.9)), CommandMetrics.formatNanos(latency.max()));
+    }
+
+    /** Runs one client's requests and returns how many were answered. */
+    private int runClient(Socket s, int client, Random rnd, LatencyHistogram latency) throws IOException {
+        Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        int added = 0;
+        int answered = 0;
+        while (answered < requests) {
+            int batch = Math.min(pipeline, requests - answered);
+            long before = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                int r = rnd.nextInt(10);
+                String command;
+                if (r < 2 || added == 0) {
+                    command = "todo " + BenchmarkData.description(rnd) + " c" + client + "x";
+                    added++;
+                } else if (r < 3) {
+                    command = "mark " + (1 + rnd.nextInt(added));
+                } else {
+                    command = "find c" + client + "x";
+                }
+                out.write(command);
+                out.write('\n');
+            }
+            out.flush();
+            for (int i = 0; i < batch; i++) {
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty()) {
+                    // skip to the blank line that ends the response
+                }
+            }
+            latency.record(System.nanoTime() - before);
+            answered += batch;
+        }
+        return answered;
+    }
+}
@@ -0,0 +1,78 @@
+package Butler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures loading and saving a whole task file, as plain text ({@code txt})
+ * or in compressed blocks ({@code blk}), and reading a few tasks by position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int tasks;
+
+    @Param({ "txt", "blk" })
+    public String format;
+
+    private Path dir;
+    private Storage loadStorage;
+    private Storage saveStorage;
+    private ArrayList<Task> toSave;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("butler-storage-bench");
+        loadStorage = new Storage(BenchmarkData.taskFile(dir, tasks, BenchmarkData.DEFAULT_SEED, "." + format).toString());
+        saveStorage = new Storage(dir.resolve("saved." + format).toString());
+        toSave = BenchmarkData.tasks(tasks, BenchmarkData.DEFAULT_SEED);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() {
+        return loadStorage.load();
+    }
+
+    /** Reads ten tasks from the middle of the file. */
+    @Benchmark
+    public List<Task> loadRange() {
+        return loadStorage.loadRange(tasks / 2, tasks / 2 + 10);
+    }
+
+    @Benchmark
+    public void save() {
+        saveStorage.save(toSave);
+    }
+}
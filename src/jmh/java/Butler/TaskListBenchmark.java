@@ -0,0 +1,48 @@
+package Butler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TaskList#findByDescriptionContains(String)} for a keyword
+ * that matches about one task in a hundred, one that matches about a fifth of
+ * them, and one that matches nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskListBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int tasks;
+
+    @Param({ BenchmarkData.RARE_WORD, "book", "absent" })
+    public String keyword;
+
+    private TaskList list;
+
+    @Setup
+    public void setUp() {
+        list = new TaskList(BenchmarkData.tasks(tasks, BenchmarkData.DEFAULT_SEED));
+    }
+
+    @Benchmark
+    public ArrayList<Task> find() {
+        return list.findByDescriptionContains(keyword);
+    }
+}
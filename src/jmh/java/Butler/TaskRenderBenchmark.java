@@ -0,0 +1,56 @@
+package Butler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Task#toString()}, which every list, find and confirmation
+ * message goes through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskRenderBenchmark {
+
+    @Param({ "todo", "deadline", "event" })
+    public String type;
+
+    private Task task;
+
+    @Setup
+    public void setUp() {
+        switch (type) {
+        case "todo":
+            task = new Todo("read book");
+            break;
+        case "deadline":
+            task = new Deadline("return book", LocalDate.of(2019, 6, 6));
+            break;
+        default:
+            task = new Event("project meeting", LocalDateTime.of(2019, 8, 6, 14, 0),
+                    LocalDateTime.of(2019, 8, 6, 16, 0));
+        }
+        task.mark();
+    }
+
+    @Benchmark
+    public String render() {
+        return task.toString();
+    }
+}
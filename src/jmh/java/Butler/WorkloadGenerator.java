@@ -0,0 +1,232 @@
+package Butler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Produces an endless, reproducible stream of valid Butler commands.
+ * <p>
+ * The generator mirrors the list it is building (just the type of each
+ * task), so every index it emits is in range and every {@code reschedule}
+ * targets a deadline or event. Adds and deletes are swapped around to keep
+ * the list near the target size once it is reached.
+ */
+public class WorkloadGenerator {
+
+    /** The kinds of command the mix is made of. */
+    public enum Kind {
+        ADD, MARK, FIND, LIST, DELETE, RESCHEDULE
+    }
+
+    /** How deadline and event dates are spread. */
+    public enum Dates {
+        /** Evenly over three years. */
+        UNIFORM,
+        /** Mostly within a couple of weeks of one day, so events often overlap. */
+        CLUSTERED
+    }
+
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final LocalDate ORIGIN = LocalDate.of(2025, 1, 1);
+    private static final int UNIFORM_SPAN_DAYS = 3 * 365;
+    private static final double CLUSTER_STDDEV_DAYS = 7;
+    private static final String CONSONANTS = "bcdfghjklmnprstvwz";
+    private static final String VOWELS = "aeiou";
+
+    private final Random rnd;
+    private final Kind[] kinds = Kind.values();
+    private final int[] cumulativeWeights;
+    private final int targetTasks;
+    private final Dates dates;
+    private final String[] vocabulary;
+    /** The type of each task in the list being built, in list order. */
+    private final ArrayList<Byte> model = new ArrayList<>();
+    private int scheduled;
+    private Kind lastKind;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed           the random seed; the same settings and seed give the same commands
+     * @param mix            the relative weight of each kind of command
+     * @param targetTasks    the list size to grow to and then hover around
+     * @param dates          how dates are spread
+     * @param vocabularySize the number of distinct words used in descriptions
+     */
+    public WorkloadGenerator(long seed, Map<Kind, Integer> mix, int targetTasks, Dates dates, int vocabularySize) {
+        assert targetTasks > 0 && vocabularySize > 0 : "target and vocabulary must be positive";
+        this.rnd = new Random(seed);
+        this.targetTasks = targetTasks;
+        this.dates = dates;
+        this.cumulativeWeights = new int[kinds.length];
+        int sum = 0;
+        for (Kind k : kinds) {
+            sum += mix.getOrDefault(k, 0);
+            cumulativeWeights[k.ordinal()] = sum;
+        }
+        assert sum > 0 : "the mix needs at least one command kind";
+        this.vocabulary = new String[vocabularySize];
+        for (int i = 0; i < vocabularySize; i++) {
+            vocabulary[i] = pseudoWord(rnd);
+        }
+    }
+
+    /**
+     * Parses a mix such as {@code add=30,mark=20,find=15,list=5,delete=20,reschedule=10}.
+     * Kinds that are left out get no weight.
+     *
+     * @param spec the comma-separated {@code kind=weight} pairs
+     * @return the weights by kind
+     * @throws IllegalArgumentException if a kind or weight is not recognised
+     */
+    public static Map<Kind, Integer> parseMix(String spec) {
+        Map<Kind, Integer> mix = new EnumMap<>(Kind.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Expected kind=weight but got '" + part + "'");
+            }
+            mix.put(Kind.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    /** Returns the kind of the command last returned by {@link #next()}. */
+    public Kind lastKind() {
+        return lastKind;
+    }
+
+    /** Returns the number of tasks the list should hold after the commands so far. */
+    public int expectedTasks() {
+        return model.size();
+    }
+
+    /**
+     * Returns the next command line.
+     *
+     * @return a command that is valid against the list built so far
+     */
+    public String next() {
+        Kind kind = pick();
+        if (kind == Kind.ADD && model.size() >= targetTasks) {
+            kind = Kind.DELETE;
+        } else if (kind == Kind.DELETE && model.size() < targetTasks) {
+            kind = Kind.ADD;
+        }
+        if (model.isEmpty() && kind != Kind.FIND && kind != Kind.LIST) {
+            kind = Kind.ADD;
+        }
+        if (kind == Kind.RESCHEDULE && scheduled == 0) {
+            kind = Kind.ADD;
+        }
+        lastKind = kind;
+
+        switch (kind) {
+        case ADD:
+            return add();
+        case MARK:
+            return (rnd.nextBoolean() ? "mark " : "unmark ") + (rnd.nextInt(model.size()) + 1);
+        case FIND:
+            return "find " + vocabulary[rnd.nextInt(vocabulary.length)];
+        case LIST:
+            return "list";
+        case DELETE:
+            return delete();
+        default:
+            return reschedule();
+        }
+    }
+
+    private Kind pick() {
+        int r = rnd.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Kind k : kinds) {
+            if (r < cumulativeWeights[k.ordinal()]) {
+                return k;
+            }
+        }
+        throw new AssertionError("weights are cumulative");
+    }
+
+    private String add() {
+        String description = description();
+        int type = rnd.nextInt(4);
+        if (type < 2) {
+            model.add(TODO);
+            return "todo " + description;
+        }
+        LocalDate day = date();
+        if (type == 2) {
+            model.add(DEADLINE);
+            scheduled++;
+            return "deadline " + description + " /by " + day;
+        }
+        model.add(EVENT);
+        scheduled++;
+        return "event " + description + eventTimes(day);
+    }
+
+    private String delete() {
+        int idx = rnd.nextInt(model.size());
+        if (model.remove(idx) != TODO) {
+            scheduled--;
+        }
+        return "delete " + (idx + 1);
+    }
+
+    private String reschedule() {
+        // Probe for a deadline or event; at least one exists.
+        int idx = rnd.nextInt(model.size());
+        while (model.get(idx) == TODO) {
+            idx = (idx + 1) % model.size();
+        }
+        LocalDate day = date();
+        return "reschedule " + (idx + 1)
+                + (model.get(idx) == DEADLINE ? " /by " + day : eventTimes(day));
+    }
+
+    private String eventTimes(LocalDate day) {
+        LocalDateTime from = day.atTime(8 + rnd.nextInt(10), rnd.nextBoolean() ? 0 : 30);
+        LocalDateTime to = from.plusMinutes(30L * (1 + rnd.nextInt(6)));
+        return " /from " + format(from) + " /to " + format(to);
+    }
+
+    private static String format(LocalDateTime t) {
+        return String.format("%s %02d%02d", t.toLocalDate(), t.getHour(), t.getMinute());
+    }
+
+    private LocalDate date() {
+        if (dates == Dates.CLUSTERED) {
+            return ORIGIN.plusDays(Math.round(rnd.nextGaussian() * CLUSTER_STDDEV_DAYS));
+        }
+        return ORIGIN.plusDays(rnd.nextInt(UNIFORM_SPAN_DAYS));
+    }
+
+    private String description() {
+        StringBuilder sb = new StringBuilder();
+        int words = 2 + rnd.nextInt(4);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(vocabulary[rnd.nextInt(vocabulary.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String pseudoWord(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        int syllables = 1 + rnd.nextInt(3);
+        for (int s = 0; s < syllables; s++) {
+            sb.append(CONSONANTS.charAt(rnd.nextInt(CONSONANTS.length())))
+                    .append(VOWELS.charAt(rnd.nextInt(VOWELS.length())));
+        }
+        return sb.toString();
+    }
+}
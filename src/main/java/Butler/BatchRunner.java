@@ -0,0 +1,166 @@
+package Butler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs Butler without a GUI, feeding it one command per input line and
+ * writing each response to an output stream.
+ * <p>
+ * Work is pipelined over three threads: a reader splits the input into
+ * chunks of lines, the calling thread executes them in order, and a writer
+ * streams the responses out. Chunks keep the hand-off cost per command low.
+ * Auto-save is turned off while the script runs; the task file is written
+ * every {@code checkpointEvery} commands (if positive) and once at the end.
+ */
+public class BatchRunner {
+    private static final int CHUNK_SIZE = 1024;
+    private static final int QUEUE_DEPTH = 16;
+    private static final String[] END = new String[0];
+
+    private final Butler butler;
+    private final int checkpointEvery;
+    private volatile boolean exitRequested;
+
+    /**
+     * Creates a batch runner.
+     *
+     * @param butler          the Butler instance to drive
+     * @param checkpointEvery save after this many commands; 0 saves only at the end
+     */
+    public BatchRunner(Butler butler, int checkpointEvery) {
+        assert butler != null : "butler must not be null";
+        assert checkpointEvery >= 0 : "checkpoint interval must not be negative";
+        this.butler = butler;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    /**
+     * Executes every command from {@code in} until the input ends or the
+     * script says {@code bye}.
+     *
+     * @param in  the command script, one command per line
+     * @param out receives one response per command
+     * @return the number of commands executed
+     * @throws IOException if reading or writing fails
+     */
+    public long run(Reader in, Writer out) throws IOException {
+        BlockingQueue<String[]> commands = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        BlockingQueue<String[]> responses = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        IOException[] failure = new IOException[1];
+
+        Thread reader = new Thread(() -> readChunks(in, commands, failure), "butler-batch-reader");
+        Thread writer = new Thread(() -> writeChunks(out, responses, failure), "butler-batch-writer");
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+
+        butler.setAutoSave(false);
+        butler.setExitHandler(() -> exitRequested = true);
+        reader.start();
+        writer.start();
+
+        long executed = 0;
+        try {
+            while (!exitRequested) {
+                String[] chunk = commands.take();
+                if (chunk == END) {
+                    break;
+                }
+                String[] results = new String[chunk.length];
+                int n = 0;
+                for (String line : chunk) {
+                    results[n++] = execute(line);
+                    executed++;
+                    if (checkpointEvery > 0 && executed % checkpointEvery == 0) {
+                        results[n - 1] += butler.flush();
+                    }
+                    if (exitRequested) {
+                        break;
+                    }
+                }
+                responses.put(n == results.length ? results : Arrays.copyOf(results, n));
+            }
+            responses.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reader.interrupt();
+            butler.flush();
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return executed;
+    }
+
+    private String execute(String line) {
+        try {
+            return butler.getResponse(line);
+        } catch (RuntimeException e) {
+            // One bad command must not abort a long script.
+            return "⚠ Could not process '" + line + "': " + e;
+        }
+    }
+
+    private static void readChunks(Reader in, BlockingQueue<String[]> commands, IOException[] failure) {
+        BufferedReader br = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+        try {
+            String[] chunk = new String[CHUNK_SIZE];
+            int n = 0;
+            String line;
+            while ((line = br.readLine()) != null) {
+                chunk[n++] = line;
+                if (n == CHUNK_SIZE) {
+                    commands.put(chunk);
+                    chunk = new String[CHUNK_SIZE];
+                    n = 0;
+                }
+            }
+            if (n > 0) {
+                commands.put(Arrays.copyOf(chunk, n));
+            }
+            commands.put(END);
+        } catch (IOException e) {
+            failure[0] = e;
+            try {
+                commands.put(END);
+            } catch (InterruptedException ignored) {
+                // the executor stopped early (bye)
+            }
+        } catch (InterruptedException e) {
+            // the executor stopped early (bye)
+        }
+    }
+
+    private static void writeChunks(Writer out, BlockingQueue<String[]> responses, IOException[] failure) {
+        try {
+            String[] chunk;
+            while ((chunk = responses.take()) != END) {
+                if (failure[0] != null) {
+                    continue; // keep draining so the executor never blocks
+                }
+                try {
+                    for (String response : chunk) {
+                        if (!response.isEmpty()) {
+                            out.write(response);
+                            out.write('\n');
+                        }
+                    }
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            failure[0] = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package Butler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes the block-compressed task file used by {@link Storage} for
+ * paths ending in {@value #EXTENSION}.
+ * <p>
+ * The file holds the same lines as the plain task file, grouped into blocks
+ * of up to {@value #TASKS_PER_BLOCK} tasks that are each compressed on their
+ * own with {@link Deflater}. An index at the end records where every block
+ * starts, which tasks it holds and its checksum:
+ * <pre>
+ * magic | block 0 | block 1 | ... | index | index offset | magic
+ * </pre>
+ * Because blocks are independent, loads and saves compress them in
+ * parallel, and {@link #readRange} decompresses only the blocks it needs.
+ */
+final class BlockFile {
+    private BlockFile() {} // prevent instantiation
+
+    /** File name ending that selects this format. */
+    static final String EXTENSION = ".blk";
+    /** Tasks per block: large enough to compress well, small enough to read a few cheaply. */
+    static final int TASKS_PER_BLOCK = 4096;
+
+    private static final long MAGIC = 0x4255544c45525a31L; // "BUTLERZ1"
+    private static final int FOOTER_BYTES = Long.BYTES * 2;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES * 5;
+
+    /** Where one block lives and what it holds. */
+    static final class Block {
+        final long offset;
+        final int compressedLength;
+        final int rawLength;
+        final int firstTask;
+        final int taskCount;
+        final int crc;
+
+        Block(long offset, int compressedLength, int rawLength, int firstTask, int taskCount, int crc) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+            this.firstTask = firstTask;
+            this.taskCount = taskCount;
+            this.crc = crc;
+        }
+    }
+
+    /** A block compressed in memory, waiting to be written. */
+    private static final class Compressed {
+        final byte[] data;
+        final int length;
+        final int rawLength;
+        final int crc;
+
+        Compressed(byte[] data, int length, int rawLength, int crc) {
+            this.data = data;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.crc = crc;
+        }
+    }
+
+    /** Returns whether {@code file} should be stored in this format. */
+    static boolean isBlockFile(Path file) {
+        Path name = file.getFileName();
+        return name != null && name.toString().endsWith(EXTENSION);
+    }
+
+    // ---------- Writing ----------
+
+    /**
+     * Writes the given tasks to {@code file}, replacing what it held. Callers
+     * write to a temporary file and move it into place, so that readers never
+     * see half a file.
+     *
+     * @param file  the file to write
+     * @param tasks  the tasks to store
+     * @param hashes filled in with the {@link Storage#hash} of each task's line
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    static long write(Path file, List<Task> tasks, long[] hashes) throws IOException {
+        assert hashes.length == tasks.size() : "one hash per task";
+        int blocks = (tasks.size() + TASKS_PER_BLOCK - 1) / TASKS_PER_BLOCK;
+        List<CompletableFuture<Compressed>> pending = new ArrayList<>(blocks);
+        for (int b = 0; b < blocks; b++) {
+            int first = b * TASKS_PER_BLOCK;
+            List<Task> slice = tasks.subList(first, Math.min(tasks.size(), first + TASKS_PER_BLOCK));
+            pending.add(CompletableFuture.supplyAsync(() -> compress(slice, hashes, first)));
+        }
+
+        List<Block> index = new ArrayList<>(blocks);
+        long position;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(ch, ByteBuffer.allocate(Long.BYTES).putLong(MAGIC).flip());
+            position = Long.BYTES;
+            for (int b = 0; b < blocks; b++) {
+                Compressed c = join(pending.get(b));
+                int first = b * TASKS_PER_BLOCK;
+                index.add(new Block(position, c.length, c.rawLength, first,
+                        Math.min(tasks.size(), first + TASKS_PER_BLOCK) - first, c.crc));
+                writeFully(ch, ByteBuffer.wrap(c.data, 0, c.length));
+                position += c.length;
+            }
+
+            ByteBuffer tail = ByteBuffer.allocate(Integer.BYTES + index.size() * ENTRY_BYTES + FOOTER_BYTES);
+            tail.putInt(index.size());
+            for (Block b : index) {
+                tail.putLong(b.offset).putInt(b.compressedLength).putInt(b.rawLength)
+                        .putInt(b.firstTask).putInt(b.taskCount).putInt(b.crc);
+            }
+            tail.putLong(position).putLong(MAGIC);
+            writeFully(ch, tail.flip());
+            position += tail.limit();
+        }
+        return position;
+    }
+
+    private static Compressed compress(List<Task> slice, long[] hashes, int first) {
+        StringBuilder sb = new StringBuilder(slice.size() * 48);
+        for (int i = 0; i < slice.size(); i++) {
+            String line = slice.get(i).serialize();
+            hashes[first + i] = Storage.hash(line);
+            sb.append(line).append('\n');
+        }
+        byte[] raw = sb.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[Math.max(64, raw.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return new Compressed(out, length, raw.length, (int) crc.getValue());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    // ---------- Reading ----------
+
+    /**
+     * Reads every task, decompressing blocks in parallel. Blocks that fail
+     * their checksum are skipped, like malformed lines in the plain format.
+     *
+     * @param file     the file to read
+     * @param parse    turns one stored line into a task, or null to skip it
+     * @param progress receives the fraction of blocks read, in order
+     * @return the tasks, in file order
+     * @throws IOException if the file cannot be read or is not in this format
+     */
+    static ArrayList<Task> readAll(Path file, Function<String, Task> parse, DoubleConsumer progress)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Block> index = readIndex(ch);
+            int total = 0;
+            List<CompletableFuture<List<Task>>> pending = new ArrayList<>(index.size());
+            for (Block b : index) {
+                total += b.taskCount;
+                pending.add(CompletableFuture.supplyAsync(() -> readBlockOrSkip(ch, b, parse)));
+            }
+            ArrayList<Task> tasks = new ArrayList<>(total);
+            for (int i = 0; i < pending.size(); i++) {
+                tasks.addAll(join(pending.get(i)));
+                progress.accept((double) (i + 1) / pending.size());
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Reads tasks {@code from} (inclusive) to {@code to} (exclusive), touching
+     * only the blocks that hold them.
+     *
+     * @param file  the file to read
+     * @param from  the index of the first task wanted
+     * @param to    one past the index of the last task wanted
+     * @param parse turns one stored line into a task, or null to skip it
+     * @return the tasks in that range that could be read
+     * @throws IOException if the file cannot be read or is not in this format
+     */
+    static List<Task> readRange(Path file, int from, int to, Function<String, Task> parse) throws IOException {
+        List<Task> tasks = new ArrayList<>(Math.max(0, to - from));
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (Block b : readIndex(ch)) {
+                int end = b.firstTask + b.taskCount;
+                if (end <= from || b.firstTask >= to) {
+                    continue;
+                }
+                List<Task> blockTasks = readBlock(ch, b, parse);
+                int lo = Math.max(from, b.firstTask) - b.firstTask;
+                int hi = Math.min(to, end) - b.firstTask;
+                tasks.addAll(blockTasks.subList(Math.min(lo, blockTasks.size()), Math.min(hi, blockTasks.size())));
+            }
+        }
+        return tasks;
+    }
+
+    /** Reads the index through the footer at the end of the file. */
+    static List<Block> readIndex(FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size < Long.BYTES + Integer.BYTES + FOOTER_BYTES) {
+            throw new IOException("not a block task file: too short");
+        }
+        ByteBuffer footer = readAt(ch, size - FOOTER_BYTES, FOOTER_BYTES);
+        long indexOffset = footer.getLong();
+        if (footer.getLong() != MAGIC || readAt(ch, 0, Long.BYTES).getLong() != MAGIC
+                || indexOffset < Long.BYTES || indexOffset > size - FOOTER_BYTES - Integer.BYTES) {
+            throw new IOException("not a block task file");
+        }
+        ByteBuffer buf = readAt(ch, indexOffset, (int) (size - FOOTER_BYTES - indexOffset));
+        int count = buf.getInt();
+        if (count < 0 || buf.remaining() != (long) count * ENTRY_BYTES) {
+            throw new IOException("corrupt block index");
+        }
+        List<Block> index = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Block b = new Block(buf.getLong(), buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt());
+            if (b.offset < Long.BYTES || b.offset + b.compressedLength > indexOffset
+                    || b.compressedLength < 0 || b.rawLength < 0) {
+                throw new IOException("corrupt block index");
+            }
+            index.add(b);
+        }
+        return index;
+    }
+
+    private static List<Task> readBlockOrSkip(FileChannel ch, Block b, Function<String, Task> parse) {
+        try {
+            return readBlock(ch, b, parse);
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static List<Task> readBlock(FileChannel ch, Block b, Function<String, Task> parse) throws IOException {
+        ByteBuffer compressed = readAt(ch, b.offset, b.compressedLength);
+        byte[] raw = new byte[b.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), 0, b.compressedLength);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int got = inflater.inflate(raw, n, raw.length - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += got;
+            }
+            if (n != raw.length) {
+                throw new IOException("block at " + b.offset + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("block at " + b.offset + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != b.crc) {
+            throw new IOException("block at " + b.offset + " fails its checksum");
+        }
+
+        List<Task> tasks = new ArrayList<>(b.taskCount);
+        int start = 0;
+        for (int i = 0; i < raw.length; i++) {
+            if (raw[i] == '\n') {
+                Task t = parse.apply(new String(raw, start, i - start, StandardCharsets.UTF_8));
+                if (t != null) {
+                    tasks.add(t);
+                }
+                start = i + 1;
+            }
+        }
+        return tasks;
+    }
+
+    /** Reads {@code length} bytes at {@code position}; safe to call from several threads. */
+    private static ByteBuffer readAt(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        return buf.flip();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
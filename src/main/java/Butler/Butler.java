@@ -1,5 +1,23 @@
 package Butler;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
 /**
  * The main logic class for the Butler chatbot application.
  * <p>
@@ -12,30 +30,40 @@ public class Butler {
     // ---------- Collaborators ----------
     private final Storage storage;
     private final TaskList tasks;
+    private final ReminderService reminders = new ReminderService();
+    private boolean remindersStarted;
+    private final ProductivityStats stats = new ProductivityStats();
+    private boolean statsStarted;
+    /** Sorted orders of the tasks, each started by the first sort by its key. */
+    private final Map<TaskOrder.Key, TaskOrder> orders = new EnumMap<>(TaskOrder.Key.class);
+    private TaskFileWatcher watcher;
+
+    // ---------- Front-end hooks ----------
+    private Runnable exitHandler = () -> { };
+
+    // ---------- Persistence ----------
+    private boolean autoSave = true;
+    /** The only directory import and export may use, or null to allow any path. */
+    private volatile Path transferDir;
+    /**
+     * Conflicts found by this thread's last save, told with the response of
+     * the command that saved; each thread only ever sees its own saves.
+     */
+    private final ThreadLocal<String> mergeNote = ThreadLocal.withInitial(() -> "");
+    private boolean dirty;
+    /** Whether this thread is inside {@link #inBatch}, so saves wait for the batch to end. */
+    private final ThreadLocal<Boolean> batching = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
-    // ---------- Timings ----------
-    private static final int EXIT_DELAY_SECONDS = 2;
-
-    // ---------- Commands Enum ----------
-    private enum Command {
-        BYE, LIST, MARK, UNMARK, TODO, DEADLINE, EVENT, DELETE, FIND, RESCHEDULE, UNKNOWN;
-
-        static Command from(String s) {
-            switch (s) {
-            case "bye": return BYE;
-            case "list": return LIST;
-            case "mark": return MARK;
-            case "unmark": return UNMARK;
-            case "todo": return TODO;
-            case "deadline": return DEADLINE;
-            case "event": return EVENT;
-            case "delete": return DELETE;
-            case "find": return FIND;
-            case "reschedule": return RESCHEDULE;
-            default: return UNKNOWN;
-            }
-        }
-    }
+    // ---------- Commands ----------
+    private final CommandRegistry commands = new CommandRegistry();
+    /**
+     * Lets read-only commands run side by side while commands that change the
+     * list, and saves, run alone. Guards {@code tasks}, {@code storage} and {@code dirty}.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CommandMetrics metrics = new CommandMetrics();
+    /** Name under which input that matches no command is counted. */
+    private static final String UNKNOWN_COMMAND = "(unknown)";
 
     /**
      * Constructs a new Butler instance.
@@ -43,109 +71,343 @@ public class Butler {
      * @param filePath the path to the file used to persist tasks
      */
     public Butler(String filePath) {
+        this(filePath, fraction -> { });
+    }
+
+    /**
+     * Constructs a new Butler instance, reporting how much of the task file
+     * has been loaded.
+     *
+     * @param filePath the path to the file used to persist tasks
+     * @param progress receives the fraction of the task file loaded, from 0.0 to 1.0
+     */
+    public Butler(String filePath, DoubleConsumer progress) {
         assert filePath != null && !filePath.isBlank() : "filePath must be non-null and non-blank";
         this.storage = new Storage(filePath);
         TaskList loaded;
         try {
-            loaded = new TaskList(storage.load());
+            loaded = new TaskList(storage.load(progress));
         } catch (Exception e) {
             loaded = new TaskList();
         }
         this.tasks = loaded;
         assert this.tasks != null : "tasks must be initialized";
+        registerCommands();
     }
 
     /**
-     * Processes a single user input and returns Butler's response as a string.
-     * <p>
-     * This replaces the old console-style event loop. Each call corresponds to
-     * exactly one user command → one response for the GUI.
+     * Registers every command word with its handler. Each command can also be
+     * typed as any unambiguous prefix of its name (e.g. {@code del}).
+     */
+    private void registerCommands() {
+        commands.registerReadOnly("bye", args -> {
+            exitHandler.run();
+            return "Bye. Hope to see you again soon!";
+        });
+        commands.registerReadOnly("list", this::handleList, "ls");
+        commands.register("mark", this::handleMark, "m"); // "m" alone would be ambiguous with metrics
+        commands.register("unmark", this::handleUnmark);
+        commands.register("todo", this::handleTodo, "t"); // "t" alone would be ambiguous with tag
+        commands.register("deadline", this::handleDeadline, "dl");
+        commands.register("event", this::handleEvent, "ev");
+        commands.register("delete", this::handleDelete, "rm");
+        commands.registerReadOnly("find", this::handleFind);
+        commands.register("reschedule", this::handleReschedule);
+        commands.registerReadOnly("conflicts", args -> buildConflictsString());
+        commands.register("import", this::handleImport);
+        commands.registerReadOnly("export", this::handleExport);
+        // Not read-only: the first report starts the rollups, which changes the list's listeners.
+        commands.register("report", this::handleReport);
+        // Not read-only either: sorting starts an order or merges changes into it.
+        commands.register("sort", this::handleSort);
+        commands.register("tag", this::handleTag);
+        commands.register("untag", this::handleUntag);
+        commands.registerReadOnly("tags", args -> buildTagsString());
+        commands.registerReadOnly("metrics", args -> {
+            metrics.enter(CommandMetrics.Phase.RENDER);
+            return metrics.report();
+        });
+    }
+
+    /**
+     * Starts delivering reminders for upcoming deadlines and events.
+     * The sink is called from a background thread. Headless runs never call
+     * this, so they pay nothing for reminder bookkeeping.
      *
-     * @param input the raw user command string
-     * @return Butler's response text
+     * @param sink receives the text of each reminder
      */
-    public String getResponse(String input) {
+    public void startReminders(Consumer<String> sink) {
+        lock.writeLock().lock();
         try {
-            assert input != null : "input must not be null";
-            String fullCommand = input.trim();
-            if (fullCommand.isEmpty()) {
-                return "";
+            if (remindersStarted) {
+                return;
             }
+            remindersStarted = true;
+            tasks.addListener(reminders);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        reminders.start(sink);
+    }
 
-            String[] parts = Parser.splitCommand(fullCommand);
-            assert parts.length == 2 : "splitCommand must return [cmd, args]";
-            Command cmd = Command.from(parts[0]);
-            String argsLine = parts[1];
-
-            switch (cmd) {
-            case BYE:
-                scheduleExit();
-                return "Bye. Hope to see you again soon!";
-
-            case LIST:
-                return buildListString();
+    /**
+     * Starts taking in changes that other programs make to the task file, so
+     * the next save does not overwrite them. The sink is told about each
+     * change, from a background thread.
+     * <p>
+     * While this Butler has unsaved changes of its own, outside changes are
+     * not taken in; its next save merges them with its own.
+     *
+     * @param sink receives a description of each change taken in
+     */
+    public void startWatching(Consumer<String> sink) {
+        lock.writeLock().lock();
+        try {
+            if (watcher != null) {
+                return;
+            }
+            watcher = new TaskFileWatcher(storage.path(), () -> reload(sink));
+        } catch (IOException e) {
+            sink.accept("⚠ I can't watch " + storage.path() + " for changes: " + e.getMessage());
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        watcher.start();
+    }
 
-            case MARK:
-                return handleMark(argsLine);
+    private void reload(Consumer<String> sink) {
+        String notice;
+        lock.writeLock().lock();
+        try {
+            if (dirty) {
+                return;
+            }
+            Storage.Change c = storage.readChanges();
+            if (c == null) {
+                return;
+            }
+            tasks.replace(c.from, c.removed, c.added);
+            notice = "The task file changed on disk: " + c.added.size() + " tasks read, " + c.removed
+                    + " removed.\nNow you have " + tasks.size() + " tasks in the list.";
+        } finally {
+            lock.writeLock().unlock();
+        }
+        sink.accept(notice);
+    }
 
-            case UNMARK:
-                return handleUnmark(argsLine);
+    /**
+     * Sets what happens when the user says {@code bye}. The GUI closes its window;
+     * headless front ends stop reading commands. By default nothing happens.
+     *
+     * @param handler the action to run on {@code bye}
+     */
+    public void setExitHandler(Runnable handler) {
+        assert handler != null : "exit handler must not be null";
+        this.exitHandler = handler;
+    }
 
-            case TODO:
-                return handleTodo(argsLine);
+    /**
+     * Confines {@code import} and {@code export} to files inside the given
+     * directory, named by relative paths that do not leave it. Servers call
+     * this so that clients cannot read or write other files on the host.
+     *
+     * @param dir the directory holding files to import and export
+     */
+    public void setTransferDirectory(Path dir) {
+        assert dir != null : "transfer directory must not be null";
+        this.transferDir = dir.toAbsolutePath().normalize();
+    }
 
-            case DEADLINE:
-                return handleDeadline(argsLine);
+    /**
+     * Turns saving after every mutating command on or off. While it is off,
+     * changes accumulate in memory until {@link #flush()} is called.
+     *
+     * @param autoSave whether to save after each mutating command
+     */
+    public void setAutoSave(boolean autoSave) {
+        lock.writeLock().lock();
+        try {
+            this.autoSave = autoSave;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-            case EVENT:
-                return handleEvent(argsLine);
+    /** Returns the number of tasks in the list. */
+    public int taskCount() {
+        lock.readLock().lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            case DELETE:
-                return handleDelete(argsLine);
+    /**
+     * Runs {@code work}, which may call {@link #getResponse} any number of
+     * times on this thread, saving at most once when it ends instead of after
+     * every command that changes the list. Batches may nest; only the
+     * outermost one saves.
+     *
+     * @param work the commands to run
+     * @return a note on the conflicts that saving the batch ran into, or an
+     *         empty string if there were none
+     */
+    public String inBatch(Runnable work) {
+        boolean outer = !batching.get();
+        batching.set(Boolean.TRUE);
+        try {
+            work.run();
+        } finally {
+            if (outer) {
+                batching.set(Boolean.FALSE);
+                lock.writeLock().lock();
+                try {
+                    if (autoSave && dirty) {
+                        return save();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        return "";
+    }
 
-            case FIND:
-                return handleFind(argsLine);
+    /**
+     * Writes the task list to disk if it has changed since the last save.
+     *
+     * @return a note on the conflicts that saving ran into, or an empty
+     *         string if there were none
+     */
+    public String flush() {
+        lock.writeLock().lock();
+        try {
+            return dirty ? save() : "";
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-            case RESCHEDULE:
-                return handleReschedule(argsLine);
+    /**
+     * Processes a single user input and returns Butler's response as a string.
+     * <p>
+     * This replaces the old console-style event loop. Each call corresponds to
+     * exactly one user command → one response for the GUI.
+     * <p>
+     * Safe to call from several threads at once: read-only commands such as
+     * {@code list} and {@code find} run concurrently, the others one at a time.
+     *
+     * @param input the raw user command string
+     * @return Butler's response text
+     */
+    public String getResponse(String input) {
+        assert input != null : "input must not be null";
+        String fullCommand = input.trim();
+        if (fullCommand.isEmpty()) {
+            return "";
+        }
 
-            default:
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        metrics.begin();
+        String name = UNKNOWN_COMMAND;
+        boolean succeeded = false;
+        int taskCount = 0;
+        // Resolve the command word in place instead of splitting into a new array.
+        int space = fullCommand.indexOf(' ');
+        int wordEnd = space == -1 ? fullCommand.length() : space;
+        try {
+            CommandRegistry.Command cmd = commands.resolve(fullCommand, wordEnd);
+            if (cmd == null) {
                 throw new ButlerException("Sorry, I don't recognize that command.");
             }
+            name = cmd.name();
+            String argsLine = space == -1 ? "" : fullCommand.substring(space + 1);
+            Lock held = cmd.readOnly() ? lock.readLock() : lock.writeLock();
+            held.lock();
+            try {
+                String response = cmd.handler().execute(argsLine);
+                succeeded = true;
+                return response + mergeNote.get();
+            } finally {
+                mergeNote.remove();
+                taskCount = tasks.size();
+                held.unlock();
+            }
         } catch (ButlerException ex) {
+            metrics.enter(CommandMetrics.Phase.RENDER);
             return "⚠ " + ex.getMessage();
+        } finally {
+            metrics.end(name, succeeded);
+            if (event.shouldCommit()) {
+                event.command = name;
+                event.argsLength = Math.max(0, fullCommand.length() - wordEnd - 1);
+                event.taskCount = taskCount;
+                event.status = succeeded ? "ok" : "error";
+                event.commit();
+            }
         }
     }
 
+    /**
+     * Writes the {@code metrics} report to {@code file} every
+     * {@code periodSeconds} seconds from a background thread.
+     *
+     * @param file          the file to write
+     * @param periodSeconds the time between reports
+     */
+    public void startMetricsDump(Path file, long periodSeconds) {
+        metrics.startDumping(file, periodSeconds);
+    }
+
+    /**
+     * Writes the {@code metrics} report to {@code file} once.
+     *
+     * @param file the file to write
+     */
+    public void dumpMetrics(Path file) {
+        metrics.dump(file);
+    }
+
     // ---------- Command Handlers ----------
 
     private String handleTodo(String argsLine) throws ButlerException {
-        Checks.ensureNonEmpty(argsLine.trim(), "Please tell me what the todo is about.");
-        Task t = new Todo(argsLine.trim());
+        List<String> tags = new ArrayList<>();
+        String desc = Parser.extractTags(argsLine, tags);
+        Checks.ensureNonEmpty(desc, "Please tell me what the todo is about.");
+        Task t = new Todo(desc);
+        t.setTags(tags);
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
         tasks.add(t);
-        storage.save(tasks.all());
+        persist();
         return formatAddMessage(t);
     }
 
     private String handleDeadline(String argsLine) throws ButlerException {
         Checks.ensureContains(argsLine, Parser.DELIM_BY, "A deadline needs a '/by <date>' part (yyyy-MM-dd).");
         String[] parts = Parser.splitOnce(argsLine, Parser.DELIM_BY);
-        String desc = parts[0].trim();
+        List<String> tags = new ArrayList<>();
+        String desc = Parser.extractTags(parts[0], tags);
         String byRaw = parts[1].trim();
 
         Checks.ensureNonEmpty(desc, "Deadline description cannot be empty.");
         var by = Parser.parseLocalDate(byRaw);
 
         Task t = new Deadline(desc, by);
+        t.setTags(tags);
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
         tasks.add(t);
-        storage.save(tasks.all());
+        persist();
         return formatAddMessage(t);
     }
 
     private String handleEvent(String argsLine) throws ButlerException {
         Checks.ensureContains(argsLine, Parser.DELIM_FROM, "An event needs '/from <start>' and '/to <end>'.");
         String[] p1 = Parser.splitOnce(argsLine, Parser.DELIM_FROM);
-        String desc = p1[0].trim();
+        List<String> tags = new ArrayList<>();
+        String desc = Parser.extractTags(p1[0], tags);
         String afterFrom = p1[1];
 
         Checks.ensureContains(afterFrom, Parser.DELIM_TO, "Please include the end time using '/to <end>'.");
@@ -160,18 +422,20 @@ public class Butler {
         assert !to.isBefore(from) : "event end must not be before start";
 
         Task t = new Event(desc, from, to);
+        t.setTags(tags);
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
         tasks.add(t);
-        storage.save(tasks.all());
-        return formatAddMessage(t);
+        persist();
+        return formatAddMessage(t) + formatConflictWarning(t);
     }
 
     private String handleMark(String argsLine) throws ButlerException {
         int idx = Checks.parseIndex(argsLine);
         Checks.ensureIndexInRange(idx, tasks.size(), "I can't find that task number.");
         assert idx >= 1 && idx <= tasks.size() : "index must be within 1..size";
-        Task t = tasks.get(idx - 1);
-        t.mark();
-        storage.save(tasks.all());
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        Task t = tasks.mark(idx - 1);
+        persist();
         return "Nice! I've marked this task as done:\n   " + t;
     }
 
@@ -179,26 +443,114 @@ public class Butler {
         int idx = Checks.parseIndex(argsLine);
         Checks.ensureIndexInRange(idx, tasks.size(), "That task number is not in the list.");
         assert idx >= 1 && idx <= tasks.size() : "index must be within 1..size";
-        Task t = tasks.get(idx - 1);
-        t.unmark();
-        storage.save(tasks.all());
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        Task t = tasks.unmark(idx - 1);
+        persist();
         return "OK, I've marked this task as not done yet:\n   " + t;
     }
 
     private String handleDelete(String argsLine) throws ButlerException {
         int idx = Checks.parseIndex(argsLine);
         Checks.ensureIndexInRange(idx, tasks.size(), "That task number is not in the list.");
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
         Task removed = tasks.remove(idx - 1);
-        storage.save(tasks.all());
+        persist();
         return "Noted. I've removed this task:\n   " + removed
                 + "\nNow you have " + tasks.size() + " tasks in the list.";
     }
 
+    /**
+     * Finds tasks by keyword and/or tags.
+     * <p>
+     * Usage: {@code find book}, {@code find #work #urgent}, {@code find #work|#home -#someday}
+     */
     private String handleFind(String argsLine) throws ButlerException {
         Checks.ensureNonEmpty(argsLine, "Please provide a keyword to search.");
+        if (argsLine.indexOf('#') >= 0) {
+            TagQuery q = TagQuery.parse(argsLine);
+            if (q.hasTags()) {
+                metrics.enter(CommandMetrics.Phase.EXECUTE);
+                return formatFound(tasks.findByTags(q));
+            }
+        }
         return buildFindString(argsLine.trim());
     }
 
+    /**
+     * Lists all tasks, or only those with or without some tags, keeping
+     * their numbers in the full list.
+     * <p>
+     * Usage: {@code list}, {@code list #work}, {@code list -#someday}
+     */
+    private String handleList(String argsLine) {
+        if (argsLine.indexOf('#') < 0) {
+            return buildListString();
+        }
+        TagQuery q = TagQuery.parse(argsLine);
+        if (!q.hasTags()) {
+            return buildListString();
+        }
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        int[] selected = tasks.positionsOf(tasks.select(q));
+        metrics.enter(CommandMetrics.Phase.RENDER);
+        StringBuilder sb = new StringBuilder("Here are the matching tasks in your list:\n");
+        int count = 0;
+        for (int i : selected) {
+            if (q.keyword.isEmpty() || tasks.get(i).getDescription().contains(q.keyword)) {
+                count++;
+                sb.append(" ").append(i + 1).append(".").append(tasks.get(i)).append("\n");
+            }
+        }
+        if (count == 0) {
+            sb.append(" (no matching tasks found)\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Adds tags to a task.
+     * <p>
+     * Usage: {@code tag 3 #work #urgent}
+     */
+    private String handleTag(String argsLine) throws ButlerException {
+        return retag(argsLine, true);
+    }
+
+    /**
+     * Removes tags from a task.
+     * <p>
+     * Usage: {@code untag 3 #urgent}
+     */
+    private String handleUntag(String argsLine) throws ButlerException {
+        return retag(argsLine, false);
+    }
+
+    private String retag(String argsLine, boolean add) throws ButlerException {
+        String[] p = Parser.splitCommand(argsLine.trim());
+        Checks.ensureNonEmpty(p[0], "Please provide the task number to tag.");
+        int idx = Checks.parseIndex(p[0]);
+        Checks.ensureIndexInRange(idx, tasks.size(), "I can't find that task number.");
+        List<String> named = new ArrayList<>();
+        String rest = Parser.extractTags(p[1], named);
+        if (named.isEmpty() || !rest.isEmpty()) {
+            throw new ButlerException("Please give the tags as #words, e.g. '" + (add ? "tag" : "untag")
+                    + " " + idx + " #work'.");
+        }
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        Set<String> tags = new TreeSet<>(tasks.get(idx - 1).getTags());
+        for (String tag : named) {
+            String bare = tag.toLowerCase(Locale.ROOT);
+            if (add) {
+                tags.add(bare);
+            } else {
+                tags.remove(bare);
+            }
+        }
+        Task t = tasks.retag(idx - 1, tags);
+        persist();
+        return (add ? "Tagged:\n   " : "Untagged:\n   ") + t;
+    }
+
     /**
      * Reschedules a task by index.
      * <p>
@@ -213,19 +565,161 @@ public class Butler {
         Checks.ensureNonEmpty(p[0], "Please provide the task number to reschedule.");
         int idx = Checks.parseIndex(p[0]);
         Checks.ensureIndexInRange(idx, tasks.size(), "That task number is not in the list.");
-        Task t = tasks.get(idx - 1);
         String rest = p.length > 1 ? p[1].trim() : "";
 
         // Polymorphic reschedule: no instanceof
-        t.reschedule(rest);
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        Task t = tasks.reschedule(idx - 1, rest);
+
+        persist();
+        return "Updated task:\n   " + t + formatConflictWarning(t);
+    }
+
+    /**
+     * Appends the tasks in a CSV or iCalendar file, saving once at the end.
+     * <p>
+     * Usage: {@code import tasks.csv} or {@code import calendar.ics}
+     */
+    private String handleImport(String argsLine) throws ButlerException {
+        Checks.ensureNonEmpty(argsLine.trim(), "Please tell me which .csv or .ics file to import.");
+        Path file = transferPath(argsLine.trim());
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        int before = tasks.size();
+        try {
+            return TaskTransfer.importTasks(file, tasks::addAll).describe(file)
+                    + "\nNow you have " + tasks.size() + " tasks in the list.";
+        } finally {
+            // Keep whatever was read before a failure, as the list now holds it.
+            if (tasks.size() > before) {
+                persist();
+            }
+        }
+    }
 
-        storage.save(tasks.all());
-        return "Updated task:\n   " + t;
+    /**
+     * Writes every task to a CSV or iCalendar file.
+     * <p>
+     * Usage: {@code export tasks.csv} or {@code export calendar.ics}
+     */
+    private String handleExport(String argsLine) throws ButlerException {
+        Checks.ensureNonEmpty(argsLine.trim(), "Please tell me which .csv or .ics file to export to.");
+        Path file = transferPath(argsLine.trim());
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        int count = TaskTransfer.exportTasks(tasks, file);
+        metrics.enter(CommandMetrics.Phase.RENDER);
+        return "Exported " + count + " tasks to "
+                + (transferDir == null ? file : transferDir.relativize(file)) + ".";
+    }
+
+    /**
+     * Resolves the file named in an import or export command, keeping it
+     * inside the transfer directory if one is set.
+     */
+    private Path transferPath(String name) throws ButlerException {
+        Path file;
+        try {
+            file = Paths.get(name);
+        } catch (InvalidPathException e) {
+            throw new ButlerException("That is not a valid file name: " + name);
+        }
+        Path dir = transferDir;
+        if (dir == null) {
+            return file;
+        }
+        for (Path part : file) {
+            if (part.toString().equals("..")) {
+                file = null;
+                break;
+            }
+        }
+        Path resolved = file == null || file.isAbsolute() ? null : dir.resolve(file).normalize();
+        if (resolved == null || !resolved.startsWith(dir) || resolved.equals(dir)) {
+            throw new ButlerException("Please give a plain file name such as tasks.csv;"
+                    + " import and export only use files in your own folder.");
+        }
+        return resolved;
+    }
+
+    /**
+     * Reports how many tasks were completed per day, week or month, and how
+     * many deadlines were missed per month. The counts are kept up to date as
+     * tasks change, starting with the first report.
+     * <p>
+     * Usage: {@code report}, {@code report day}, {@code report week} or {@code report month}
+     */
+    private String handleReport(String argsLine) throws ButlerException {
+        String arg = argsLine.trim().toLowerCase(Locale.ROOT);
+        ProductivityStats.Period period;
+        switch (arg) {
+        case "":
+        case "week":
+            period = ProductivityStats.Period.WEEK;
+            break;
+        case "day":
+            period = ProductivityStats.Period.DAY;
+            break;
+        case "month":
+            period = ProductivityStats.Period.MONTH;
+            break;
+        default:
+            throw new ButlerException("Use 'report', 'report day', 'report week' or 'report month'.");
+        }
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        if (!statsStarted) {
+            statsStarted = true;
+            tasks.addListener(stats);
+        }
+        metrics.enter(CommandMetrics.Phase.RENDER);
+        return stats.report(period, LocalDate.now());
+    }
+
+    /**
+     * Lists the tasks sorted by date, type, status or description, keeping
+     * their numbers in the list. Each order is kept up to date as tasks
+     * change, starting with the first sort by its key.
+     * <p>
+     * Usage: {@code sort by:date}, {@code sort by:type}, {@code sort by:status}
+     * or {@code sort by:description}
+     */
+    private String handleSort(String argsLine) throws ButlerException {
+        String arg = argsLine.trim().toLowerCase(Locale.ROOT);
+        if (arg.startsWith("by:")) {
+            arg = arg.substring(3).trim();
+        }
+        TaskOrder.Key key = null;
+        for (TaskOrder.Key k : TaskOrder.Key.values()) {
+            if (k.name().toLowerCase(Locale.ROOT).equals(arg)) {
+                key = k;
+            }
+        }
+        if (key == null) {
+            throw new ButlerException(
+                    "Use 'sort by:date', 'sort by:type', 'sort by:status' or 'sort by:description'.");
+        }
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        TaskOrder order = orders.get(key);
+        if (order == null) {
+            order = new TaskOrder(key);
+            orders.put(key, order);
+            tasks.addListener(order);
+        }
+        order.merge();
+        metrics.enter(CommandMetrics.Phase.RENDER);
+        if (tasks.isEmpty()) {
+            return "Your task list is empty.";
+        }
+        StringBuilder sb = new StringBuilder("Here are the tasks in your list, by ").append(arg).append(":\n");
+        for (int i = 0; i < order.size(); i++) {
+            Task t = order.get(i);
+            sb.append(" ").append(tasks.positionOf(t) + 1).append(".").append(t).append("\n");
+        }
+        return sb.toString().trim();
     }
 
     // ---------- Helpers for LIST / FIND ----------
 
     private String buildListString() {
+        metrics.enter(CommandMetrics.Phase.RENDER);
         if (tasks.isEmpty()) {
             return "Your task list is empty.";
         }
@@ -237,9 +731,15 @@ public class Butler {
     }
 
     private String buildFindString(String keyword) {
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        return formatFound(tasks.findByDescriptionContains(keyword));
+    }
+
+    private String formatFound(List<Task> found) {
+        metrics.enter(CommandMetrics.Phase.RENDER);
         StringBuilder sb = new StringBuilder("Here are the matching tasks in your list:\n");
         int count = 0;
-        for (Task t : tasks.findByDescriptionContains(keyword)) {
+        for (Task t : found) {
             count++;
             sb.append(" ").append(count).append(".").append(t).append("\n");
         }
@@ -249,17 +749,93 @@ public class Butler {
         return sb.toString().trim();
     }
 
+    private String buildTagsString() {
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        Map<String, Integer> counts = tasks.tagCounts();
+        metrics.enter(CommandMetrics.Phase.RENDER);
+        if (counts.isEmpty()) {
+            return "None of your tasks have tags yet.";
+        }
+        StringBuilder sb = new StringBuilder("Here are your tags:\n");
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            sb.append(" #").append(e.getKey()).append(": ").append(e.getValue())
+                    .append(e.getValue() == 1 ? " task\n" : " tasks\n");
+        }
+        return sb.toString().trim();
+    }
+
+    private String buildConflictsString() {
+        metrics.enter(CommandMetrics.Phase.EXECUTE);
+        List<Event[]> pairs = tasks.allConflicts();
+        metrics.enter(CommandMetrics.Phase.RENDER);
+        if (pairs.isEmpty()) {
+            return "None of your events overlap.";
+        }
+        StringBuilder sb = new StringBuilder("Here are the overlapping events:\n");
+        for (int i = 0; i < pairs.size(); i++) {
+            sb.append(" ").append(i + 1).append(".").append(pairs.get(i)[0]).append("\n")
+                    .append("   overlaps ").append(pairs.get(i)[1]).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
     // ---------- Small helpers ----------
 
     /**
-     * Schedules app exit after 2 seconds (2000 ms).
-     * Extracted to keep the happy path clear.
+     * Saves the task list now, or only remembers that it changed when
+     * auto-save is off. Every mutating command calls this once its change is
+     * made; whatever the command does afterwards counts as rendering.
      */
-    private void scheduleExit() {
-        javafx.animation.PauseTransition delay =
-                new javafx.animation.PauseTransition(javafx.util.Duration.seconds(EXIT_DELAY_SECONDS));
-        delay.setOnFinished(event -> javafx.application.Platform.exit());
-        delay.play();
+    private void persist() {
+        metrics.enter(CommandMetrics.Phase.PERSIST);
+        if (autoSave && !batching.get()) {
+            mergeNote.set(save());
+        } else {
+            dirty = true;
+        }
+        metrics.enter(CommandMetrics.Phase.RENDER);
+    }
+
+    /**
+     * Writes the task list to disk. If another process saved the file in the
+     * meantime, its changes are merged in and the list shows the merged tasks.
+     *
+     * @return a note listing the tasks whose other version the merge dropped,
+     *         or an empty string
+     */
+    private String save() {
+        String note = "";
+        List<Task> merged = storage.save(tasks.all());
+        if (merged != null) {
+            tasks.replace(0, tasks.size(), merged);
+            List<Task> conflicts = storage.takeMergeConflicts();
+            if (!conflicts.isEmpty()) {
+                StringBuilder sb = new StringBuilder(
+                        "\nHeads up! Another program changed these tasks at the same time; I kept:");
+                for (Task t : conflicts) {
+                    sb.append("\n   ").append(t);
+                }
+                note = sb.toString();
+            }
+        }
+        dirty = false;
+        return note;
+    }
+
+    /**
+     * Formats a warning listing the events that overlap the given task,
+     * or an empty string when there are none.
+     */
+    private String formatConflictWarning(Task t) {
+        List<Event> clashes = tasks.conflictsWith(t);
+        if (clashes.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("\nHeads up! This overlaps with:");
+        for (Event e : clashes) {
+            sb.append("\n   ").append(e);
+        }
+        return sb.toString();
     }
 
     /**
@@ -0,0 +1,266 @@
+package Butler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves one shared {@link Butler} to many clients over a local socket.
+ * <p>
+ * The protocol is line based: a client sends one command per line and gets
+ * back Butler's response followed by an empty line. Clients may send several
+ * commands without waiting; responses come back in order. {@code bye} closes
+ * the connection after its response.
+ * <p>
+ * In multi-user mode each connection first says {@code user <name>} and then
+ * works on that user's own task list, served through a {@link TenantManager};
+ * {@code tenants} describes the tenant cache.
+ * <p>
+ * Each connection gets its own thread: a virtual thread when the runtime
+ * supports them (Java 21 and later), otherwise a pooled platform thread.
+ * {@link Butler} handles the locking between connections.
+ */
+public class ButlerServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ButlerServer.class.getName());
+
+    /** Set by Butler's exit handler on the thread whose client said {@code bye}. */
+    private static final ThreadLocal<Boolean> BYE_REQUESTED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private static final String USER_COMMAND = "user";
+    private static final String TENANTS_COMMAND = "tenants";
+
+    /** The shared Butler, or null in multi-user mode. */
+    private final Butler butler;
+    /** The per-user Butlers, or null in single-user mode. */
+    private final TenantManager tenants;
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final ExecutorService connections = newConnectionExecutor();
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet();
+    private Thread acceptor;
+
+    /**
+     * Listens on the loopback interface.
+     *
+     * @param butler the Butler to serve; its exit handler is replaced
+     * @param port   the TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ButlerServer(Butler butler, int port) throws IOException {
+        this(butler, null, ServerSocketChannel.open(), loopback(port), null);
+    }
+
+    /**
+     * Listens on the loopback interface, giving each user their own task list.
+     *
+     * @param tenants the per-user Butlers; the server sets their exit handlers
+     * @param port    the TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ButlerServer(TenantManager tenants, int port) throws IOException {
+        this(null, tenants, ServerSocketChannel.open(), loopback(port), null);
+    }
+
+    /**
+     * Listens on a Unix-domain socket, replacing any stale socket file.
+     *
+     * @param butler     the Butler to serve; its exit handler is replaced
+     * @param socketFile the socket path
+     * @throws IOException if the socket cannot be bound
+     */
+    public ButlerServer(Butler butler, Path socketFile) throws IOException {
+        this(butler, null, ServerSocketChannel.open(StandardProtocolFamily.UNIX), deleteStale(socketFile), socketFile);
+    }
+
+    /**
+     * Listens on a Unix-domain socket, giving each user their own task list.
+     *
+     * @param tenants    the per-user Butlers; the server sets their exit handlers
+     * @param socketFile the socket path
+     * @throws IOException if the socket cannot be bound
+     */
+    public ButlerServer(TenantManager tenants, Path socketFile) throws IOException {
+        this(null, tenants, ServerSocketChannel.open(StandardProtocolFamily.UNIX), deleteStale(socketFile),
+                socketFile);
+    }
+
+    private ButlerServer(Butler butler, TenantManager tenants, ServerSocketChannel server, SocketAddress address,
+            Path socketFile) throws IOException {
+        this.butler = butler;
+        this.tenants = tenants;
+        this.server = server;
+        this.socketFile = socketFile;
+        server.bind(address);
+        Runnable bye = () -> BYE_REQUESTED.set(Boolean.TRUE);
+        if (butler != null) {
+            butler.setExitHandler(bye);
+        } else {
+            tenants.onLoad(b -> b.setExitHandler(bye));
+        }
+    }
+
+    static SocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    static SocketAddress deleteStale(Path socketFile) throws IOException {
+        Files.deleteIfExists(socketFile);
+        return UnixDomainSocketAddress.of(socketFile);
+    }
+
+    /** Returns the address the server is listening on. */
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Starts accepting clients on a background thread.
+     *
+     * @return this server
+     */
+    public ButlerServer start() {
+        acceptor = new Thread(this::acceptLoop, "butler-server");
+        acceptor.start();
+        return this;
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                clients.add(client);
+                connections.execute(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not accept a client", e);
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     Channels.newInputStream(client), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     Channels.newOutputStream(client), StandardCharsets.UTF_8))) {
+            BYE_REQUESTED.set(Boolean.FALSE);
+            String[] user = new String[1];
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(butler != null ? butler.getResponse(line) : respondForUser(line, user));
+                out.write("\n\n");
+                if (BYE_REQUESTED.get()) {
+                    break;
+                }
+                // Pipelined commands are answered in one write.
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // the client went away; nothing to clean up beyond closing
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    /**
+     * Answers one line in multi-user mode, where {@code user[0]} is the user
+     * this connection has identified as, if any.
+     */
+    private String respondForUser(String line, String[] user) {
+        String trimmed = line.trim();
+        try {
+            if (trimmed.startsWith(USER_COMMAND + " ")) {
+                String name = trimmed.substring(USER_COMMAND.length()).trim();
+                TenantManager.checkUser(name);
+                user[0] = name;
+                return "Hello, " + name + "! What can I do for you?";
+            }
+            if (trimmed.equals(TENANTS_COMMAND)) {
+                return tenants.report();
+            }
+            if (user[0] == null) {
+                throw new ButlerException("Please tell me who you are first: user <name>");
+            }
+            return tenants.getResponse(user[0], line);
+        } catch (ButlerException e) {
+            return "⚠ " + e.getMessage();
+        }
+    }
+
+    /**
+     * Stops accepting clients, disconnects the current ones and saves any
+     * unsaved changes.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (SocketChannel c : clients) {
+            c.close();
+        }
+        connections.shutdown();
+        try {
+            if (acceptor != null) {
+                acceptor.join();
+            }
+            connections.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (butler != null) {
+            butler.flush();
+        } else {
+            tenants.flushAll();
+        }
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread when the
+     * runtime has them, or on a growable pool of daemon platform threads.
+     * Looked up reflectively so the code still builds and runs on Java 17.
+     */
+    static ExecutorService newConnectionExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "butler-client-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
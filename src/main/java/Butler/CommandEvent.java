@@ -0,0 +1,37 @@
+package Butler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event covering one call to {@link Butler#getResponse(String)}.
+ * <p>
+ * Like the other Butler events it is enabled by default, so any recording
+ * (e.g. {@code -XX:StartFlightRecording}) includes it; without a recording
+ * it costs next to nothing.
+ */
+@Name("butler.Command")
+@Label("Command")
+@Category("Butler")
+@Description("A command typed by the user, from parsing to the response")
+@StackTrace(false)
+class CommandEvent extends Event {
+    @Label("Command")
+    String command;
+
+    @Label("Arguments Length")
+    @Description("Characters after the command word")
+    int argsLength;
+
+    @Label("Task Count")
+    @Description("Tasks in the list once the command finished")
+    int taskCount;
+
+    @Label("Status")
+    @Description("ok, or error when the command was rejected")
+    String status;
+}
@@ -0,0 +1,17 @@
+package Butler;
+
+/**
+ * Executes one user command given the text after the command word.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+
+    /**
+     * Executes the command.
+     *
+     * @param argsLine the raw arguments following the command word (may be empty)
+     * @return Butler's response text
+     * @throws ButlerException if the arguments are invalid
+     */
+    String execute(String argsLine) throws ButlerException;
+}
@@ -0,0 +1,213 @@
+package Butler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-command counters and latency histograms, split into phases.
+ * <p>
+ * Each thread running commands has its own phase timer: {@link #begin()}
+ * starts it in {@link Phase#PARSE}, {@link #enter(Phase)} moves it to the next
+ * phase, and {@link #end(String, boolean)} records the time spent in each phase
+ * that was entered. Recording is lock-free, so commands on different threads
+ * never wait for each other here.
+ */
+public class CommandMetrics {
+
+    /** The stages a command goes through. */
+    public enum Phase {
+        /** Resolving the command word and parsing its arguments. */
+        PARSE,
+        /** Changing or querying the task list. */
+        EXECUTE,
+        /** Building the response text. */
+        RENDER,
+        /** Saving the task list. */
+        PERSIST
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /** Counters and histograms for one command. */
+    private static final class Stats {
+        final LongAdder errors = new LongAdder();
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+
+        Stats() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /** The phase timer for one thread; reused for every command that thread runs. */
+    private static final class PhaseTimer {
+        final long[] spent = new long[PHASES.length];
+        final boolean[] entered = new boolean[PHASES.length];
+        long start;
+        long last;
+        Phase current;
+    }
+
+    private final Map<String, Stats> byCommand = new ConcurrentHashMap<>();
+    private final ThreadLocal<PhaseTimer> timers = ThreadLocal.withInitial(PhaseTimer::new);
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Starts timing a command on the calling thread, in the parse phase.
+     */
+    public void begin() {
+        PhaseTimer t = timers.get();
+        for (int i = 0; i < PHASES.length; i++) {
+            t.spent[i] = 0;
+            t.entered[i] = false;
+        }
+        t.start = System.nanoTime();
+        t.last = t.start;
+        t.current = Phase.PARSE;
+        t.entered[Phase.PARSE.ordinal()] = true;
+    }
+
+    /**
+     * Charges the time since the last phase change to the current phase and
+     * moves the calling thread's command into {@code next}.
+     *
+     * @param next the phase the command is entering
+     */
+    public void enter(Phase next) {
+        PhaseTimer t = timers.get();
+        if (t.current == null) {
+            return; // not inside begin()/end(), e.g. a save outside any command
+        }
+        long now = System.nanoTime();
+        t.spent[t.current.ordinal()] += now - t.last;
+        t.last = now;
+        t.current = next;
+        t.entered[next.ordinal()] = true;
+    }
+
+    /**
+     * Stops timing the calling thread's command and records it.
+     *
+     * @param command   the command's name
+     * @param succeeded whether the command completed without an error
+     */
+    public void end(String command, boolean succeeded) {
+        PhaseTimer t = timers.get();
+        long now = System.nanoTime();
+        t.spent[t.current.ordinal()] += now - t.last;
+        t.current = null;
+
+        Stats s = byCommand.computeIfAbsent(command, name -> new Stats());
+        s.total.record(now - t.start);
+        for (int i = 0; i < PHASES.length; i++) {
+            if (t.entered[i]) {
+                s.phases[i].record(t.spent[i]);
+            }
+        }
+        if (!succeeded) {
+            s.errors.increment();
+        }
+    }
+
+    /**
+     * Describes every command run so far: how often it ran, how often it
+     * failed, and the 50th percentile, 99th percentile and maximum latency of
+     * the whole command and of each phase.
+     *
+     * @return the report text
+     */
+    public String report() {
+        Map<String, Stats> sorted = new TreeMap<>(byCommand);
+        if (sorted.isEmpty()) {
+            return "No commands have run yet.";
+        }
+        StringBuilder sb = new StringBuilder("Command latency (p50 / p99 / max):");
+        for (Map.Entry<String, Stats> e : sorted.entrySet()) {
+            Stats s = e.getValue();
+            sb.append("\n ").append(e.getKey())
+                    .append(": ").append(s.total.count()).append(" runs, ")
+                    .append(s.errors.sum()).append(" errors, ")
+                    .append(summary(s.total));
+            for (int i = 0; i < PHASES.length; i++) {
+                if (s.phases[i].count() > 0) {
+                    sb.append("\n   ").append(PHASES[i].name().toLowerCase(Locale.ROOT))
+                            .append(" ").append(summary(s.phases[i]));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes {@link #report()} to {@code file} every {@code periodSeconds}
+     * seconds from a background thread, replacing the previous report.
+     * Calling this again has no effect.
+     *
+     * @param file          the file to write
+     * @param periodSeconds the time between reports
+     */
+    public synchronized void startDumping(Path file, long periodSeconds) {
+        assert periodSeconds > 0 : "period must be positive";
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "butler-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes {@link #report()} to {@code file}, replacing it in one step so
+     * readers never see a half-written report.
+     *
+     * @param file the file to write
+     */
+    public void dump(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, report() + System.lineSeparator(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // metrics are best effort; try again next period
+        }
+    }
+
+    private static String summary(LatencyHistogram h) {
+        return formatNanos(h.percentile(50)) + " / " + formatNanos(h.percentile(99))
+                + " / " + formatNanos(h.max());
+    }
+
+    /**
+     * Formats a duration with a unit that keeps it readable, e.g. {@code 850ns},
+     * {@code 12.3µs}, {@code 4.1ms} or {@code 1.2s}.
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1fµs", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.1fs", nanos / 1e9);
+    }
+}
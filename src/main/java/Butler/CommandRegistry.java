@@ -0,0 +1,177 @@
+package Butler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps command words to their handlers through a character trie.
+ * <p>
+ * Every canonical command name may be abbreviated to any prefix that no other
+ * command shares (e.g. {@code del} for {@code delete}). Aliases such as
+ * {@code dl} for {@code deadline} match only when typed in full. An exact name
+ * or alias always wins over an abbreviation.
+ * <p>
+ * Lookups walk the trie directly over the input characters, so resolving a
+ * command allocates nothing on the success path.
+ */
+public class CommandRegistry {
+
+    /** A registered command: its canonical name and the handler that runs it. */
+    public static final class Command {
+        private final String name;
+        private final CommandHandler handler;
+        private final boolean readOnly;
+
+        private Command(String name, CommandHandler handler, boolean readOnly) {
+            this.name = name;
+            this.handler = handler;
+            this.readOnly = readOnly;
+        }
+
+        /** Returns the canonical command name. */
+        public String name() {
+            return name;
+        }
+
+        /** Returns the handler that executes this command. */
+        public CommandHandler handler() {
+            return handler;
+        }
+
+        /** Returns whether this command only reads the task list, so it may run alongside other readers. */
+        public boolean readOnly() {
+            return readOnly;
+        }
+    }
+
+    /** Marks a prefix shared by more than one canonical command. */
+    private static final Command AMBIGUOUS = new Command("", null, true);
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] kids = new Node[0];
+        /** Command whose name or alias ends exactly here. */
+        private Command exact;
+        /** The only canonical command below this prefix, or {@link #AMBIGUOUS}. */
+        private Command only;
+
+        private Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return kids[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char c) {
+            Node n = child(c);
+            if (n == null) {
+                n = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                kids = Arrays.copyOf(kids, kids.length + 1);
+                keys[keys.length - 1] = c;
+                kids[kids.length - 1] = n;
+            }
+            return n;
+        }
+    }
+
+    private final Node root = new Node();
+    private final List<Command> commands = new ArrayList<>();
+
+    /**
+     * Registers a command that may change the task list, under its canonical
+     * name and optional aliases.
+     *
+     * @param name    the canonical command word
+     * @param handler the handler to run
+     * @param aliases extra words that invoke the same command when typed in full
+     * @return the registered command
+     */
+    public Command register(String name, CommandHandler handler, String... aliases) {
+        return add(new Command(name, handler, false), aliases);
+    }
+
+    /**
+     * Registers a command that only reads the task list, under its canonical
+     * name and optional aliases.
+     *
+     * @param name    the canonical command word
+     * @param handler the handler to run
+     * @param aliases extra words that invoke the same command when typed in full
+     * @return the registered command
+     */
+    public Command registerReadOnly(String name, CommandHandler handler, String... aliases) {
+        return add(new Command(name, handler, true), aliases);
+    }
+
+    private Command add(Command cmd, String... aliases) {
+        String name = cmd.name;
+        assert name != null && !name.isEmpty() : "command name must be non-empty";
+        assert cmd.handler != null : "handler must not be null";
+        Node n = root;
+        for (int i = 0; i < name.length(); i++) {
+            n = n.childOrCreate(name.charAt(i));
+            n.only = (n.only == null || n.only == cmd) ? cmd : AMBIGUOUS;
+        }
+        assert n.exact == null : "command registered twice: " + name;
+        n.exact = cmd;
+        for (String alias : aliases) {
+            Node a = root;
+            for (int i = 0; i < alias.length(); i++) {
+                a = a.childOrCreate(alias.charAt(i));
+            }
+            assert a.exact == null : "alias already taken: " + alias;
+            a.exact = cmd;
+        }
+        commands.add(cmd);
+        return cmd;
+    }
+
+    /**
+     * Resolves the command word {@code input[0, end)}.
+     *
+     * @param input the user input starting with the command word
+     * @param end   the exclusive end of the command word within {@code input}
+     * @return the matching command, or {@code null} if nothing matches
+     * @throws ButlerException if the word abbreviates more than one command
+     */
+    public Command resolve(CharSequence input, int end) throws ButlerException {
+        assert input != null && end >= 0 && end <= input.length() : "invalid command span";
+        if (end == 0) {
+            return null;
+        }
+        Node n = root;
+        for (int i = 0; i < end && n != null; i++) {
+            n = n.child(input.charAt(i));
+        }
+        if (n == null) {
+            return null;
+        }
+        if (n.exact != null) {
+            return n.exact;
+        }
+        if (n.only == AMBIGUOUS) {
+            throw new ButlerException("'" + input.subSequence(0, end) + "' could mean "
+                    + String.join(", ", candidates(input.subSequence(0, end).toString())) + ".");
+        }
+        return n.only;
+    }
+
+    /** Returns all registered commands in registration order. */
+    public List<Command> all() {
+        return commands;
+    }
+
+    private List<String> candidates(String prefix) {
+        List<String> names = new ArrayList<>();
+        for (Command c : commands) {
+            if (c.name.startsWith(prefix)) {
+                names.add(c.name);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,451 @@
+package Butler;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of non-negative ints, stored the way Roaring bitmaps store them.
+ * <p>
+ * Values are grouped by their high 16 bits. Each group holds its low 16
+ * bits in a container: a sorted {@code char} array while it has at most
+ * {@value #ARRAY_MAX} values, and a 65536-bit bitmap once it has more. Sparse
+ * sets therefore cost two bytes per value and dense ones one bit, and
+ * {@link #and}, {@link #or} and {@link #andNot} work a container at a time,
+ * with word-wide operations where both sides are bitmaps.
+ * <p>
+ * Not thread-safe; {@link TaskList} guards its bitmaps like its other indexes.
+ */
+final class CompressedBitmap {
+    /** Largest container kept as a sorted array. */
+    static final int ARRAY_MAX = 4096;
+
+    /** High 16 bits of each container's values, in ascending order. */
+    private int[] keys;
+    private Container[] containers;
+    private int size;
+
+    /** Creates an empty bitmap. */
+    CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        keys = new int[capacity];
+        containers = new Container[capacity];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param x the value, not negative
+     */
+    void add(int x) {
+        assert x >= 0 : "bitmap values must not be negative";
+        int key = x >>> 16;
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, key, new ArrayContainer(4));
+        }
+        containers[i] = containers[i].add((char) x);
+    }
+
+    /**
+     * Removes a value, if present.
+     *
+     * @param x the value
+     */
+    void remove(int x) {
+        int i = find(x >>> 16);
+        if (i < 0) {
+            return;
+        }
+        Container c = containers[i].remove((char) x);
+        if (c.cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        } else {
+            containers[i] = c;
+        }
+    }
+
+    /** Returns whether the bitmap holds {@code x}. */
+    boolean contains(int x) {
+        int i = find(x >>> 16);
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    /** Returns the number of values held. */
+    int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n += containers[i].cardinality();
+        }
+        return n;
+    }
+
+    /** Returns whether the bitmap holds no values. */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes every value to {@code action}, in ascending order.
+     *
+     * @param action receives each value
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /** Returns a new bitmap holding the values in both {@code a} and {@code b}. */
+    static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, Math.min(a.size, b.size)));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i++].and(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /** Returns a new bitmap holding the values in {@code a}, {@code b} or both. */
+    static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, a.size + b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i++].copy());
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j++].copy());
+            } else {
+                result.append(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /** Returns a new bitmap holding the values in {@code a} but not in {@code b}. */
+    static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, a.size));
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                result.append(a.keys[i], a.containers[i].andNot(b.containers[j]));
+            } else {
+                result.append(a.keys[i], a.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    private int find(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertAt(int i, int key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    /** Adds a container after the last one, dropping it if it is empty. */
+    private void append(int key, Container c) {
+        if (c.cardinality() > 0) {
+            insertAt(size, key, c);
+        }
+    }
+
+    // ---------- Containers ----------
+
+    /** The low 16 bits of the values sharing one high half. Updates may return a container of the other kind. */
+    private abstract static class Container {
+        abstract Container add(char v);
+
+        abstract Container remove(char v);
+
+        abstract boolean contains(char v);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer action);
+    }
+
+    /** Up to {@value #ARRAY_MAX} values, sorted. */
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int size;
+
+        ArrayContainer(int capacity) {
+            values = new char[capacity];
+        }
+
+        @Override
+        Container add(char v) {
+            int i = Arrays.binarySearch(values, 0, size, v);
+            if (i >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(v);
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = v;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            int i = Arrays.binarySearch(values, 0, size, v);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, size, v) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer result = new ArrayContainer(Math.max(1, size));
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < size && j < o.size) {
+                    if (values[i] < o.values[j]) {
+                        i++;
+                    } else if (values[i] > o.values[j]) {
+                        j++;
+                    } else {
+                        result.values[result.size++] = values[i++];
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result.values[result.size++] = values[i];
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof ArrayContainer)) {
+                return other.or(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            if (size + o.size > ARRAY_MAX) {
+                return toBitmap().or(o);
+            }
+            ArrayContainer result = new ArrayContainer(Math.max(1, size + o.size));
+            int i = 0;
+            int j = 0;
+            while (i < size || j < o.size) {
+                char v;
+                if (j == o.size || (i < size && values[i] < o.values[j])) {
+                    v = values[i++];
+                } else if (i == size || values[i] > o.values[j]) {
+                    v = o.values[j++];
+                } else {
+                    v = values[i++];
+                    j++;
+                }
+                result.values[result.size++] = v;
+            }
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            ArrayContainer result = new ArrayContainer(Math.max(1, size));
+            for (int i = 0; i < size; i++) {
+                if (!other.contains(values[i])) {
+                    result.values[result.size++] = values[i];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer c = new ArrayContainer(0);
+            c.values = Arrays.copyOf(values, size);
+            c.size = size;
+            return c;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                b.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            b.cardinality = size;
+            return b;
+        }
+    }
+
+    /** More than {@value #ARRAY_MAX} values, one bit each. */
+    private static final class BitmapContainer extends Container {
+        private final long[] words = new long[1 << 10];
+        private int cardinality;
+
+        @Override
+        Container add(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) == 0) {
+                words[v >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) != 0) {
+                words[v >>> 6] &= ~bit;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] = words[i] & o.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result.cardinality <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                other.forEach(0, v -> result.add((char) v));
+                return result;
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            result.cardinality = 0;
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] |= o.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                other.forEach(0, v -> {
+                    long bit = 1L << v;
+                    if ((result.words[v >>> 6] & bit) != 0) {
+                        result.words[v >>> 6] &= ~bit;
+                        result.cardinality--;
+                    }
+                });
+            } else {
+                BitmapContainer o = (BitmapContainer) other;
+                result.cardinality = 0;
+                for (int i = 0; i < words.length; i++) {
+                    result.words[i] &= ~o.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+            }
+            return result.cardinality <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer c = new BitmapContainer();
+            System.arraycopy(words, 0, c.words, 0, words.length);
+            c.cardinality = cardinality;
+            return c;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer a = new ArrayContainer(Math.max(1, cardinality));
+            forEach(0, v -> a.values[a.size++] = (char) v);
+            return a;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package Butler;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * A task that has a deadline (a specific date).
@@ -60,6 +61,12 @@ public class Deadline extends Task {
         setBy(newBy);
     }
 
+    /** Deadlines are due at the start of their day. */
+    @Override
+    public LocalDateTime reminderTime() {
+        return by.atStartOfDay();
+    }
+
     @Override
     public String typeIcon() {
         return "[D]";
@@ -72,13 +79,13 @@ public class Deadline extends Task {
 
     @Override
     public String serialize() {
-        // D|done|desc|yyyy-MM-dd
+        // D|done|desc|yyyy-MM-dd[|#tags][|@doneAtISO]
         String doneFlag = isDone ? "1" : "0";
-        return String.join("|", "D", doneFlag, description, by.toString());
+        return String.join("|", "D", doneFlag, description, by.toString()) + optionalFields();
     }
 
     @Override
     public String toString() {
-        return typeIcon() + statusIcon() + " " + description + " (by: " + DISPLAY_DATE.format(by) + ")";
+        return typeIcon() + statusIcon() + " " + describe() + " (by: " + DISPLAY_DATE.format(by) + ")";
     }
 }
@@ -79,6 +79,12 @@ public class Event extends Task {
         setSchedule(newFrom, newTo);
     }
 
+    /** Events are announced ahead of their start time. */
+    @Override
+    public LocalDateTime reminderTime() {
+        return from;
+    }
+
     @Override
     public String typeIcon() {
         return "[E]";
@@ -91,14 +97,14 @@ public class Event extends Task {
 
     @Override
     public String serialize() {
-        // E|done|desc|fromISO|toISO
+        // E|done|desc|fromISO|toISO[|#tags][|@doneAtISO]
         String doneFlag = isDone ? "1" : "0";
-        return String.join("|", "E", doneFlag, description, from.toString(), to.toString());
+        return String.join("|", "E", doneFlag, description, from.toString(), to.toString()) + optionalFields();
     }
 
     @Override
     public String toString() {
-        return typeIcon() + statusIcon() + " " + description
+        return typeIcon() + statusIcon() + " " + describe()
                 + " (from: " + DISPLAY_DATETIME.format(from)
                 + ", to: "   + DISPLAY_DATETIME.format(to) + ")";
     }
@@ -0,0 +1,131 @@
+package Butler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Keeps all {@link Event}s ordered by start time so that overlapping events
+ * can be found without comparing every pair.
+ * <p>
+ * Two events overlap when each one starts before the other ends; events that
+ * merely touch (one ends exactly when the next starts) do not conflict.
+ * <ul>
+ *     <li>{@link #overlapping(Event)} answers a single-event query in
+ *     O(log n + k) by only visiting events whose start lies within the longest
+ *     known event duration before the query.</li>
+ *     <li>{@link #allConflicts()} reports every overlapping pair with a
+ *     sweep over the start-ordered events, in O(n log n + k).</li>
+ * </ul>
+ */
+public class EventSchedule {
+    private final TreeMap<LocalDateTime, List<Event>> byStart = new TreeMap<>();
+    private int size;
+
+    /**
+     * Longest duration of any event added so far. It is never shrunk on removal,
+     * which only widens the search window, so queries remain correct.
+     */
+    private Duration longest = Duration.ZERO;
+
+    /**
+     * Adds an event to the schedule.
+     *
+     * @param e the event to add
+     */
+    public void add(Event e) {
+        assert e != null : "cannot schedule null event";
+        byStart.computeIfAbsent(e.getFrom(), k -> new ArrayList<>(1)).add(e);
+        size++;
+        Duration d = Duration.between(e.getFrom(), e.getTo());
+        if (d.compareTo(longest) > 0) {
+            longest = d;
+        }
+    }
+
+    /**
+     * Removes an event from the schedule. The event must still have the start
+     * time it was added with.
+     *
+     * @param e the event to remove
+     */
+    public void remove(Event e) {
+        List<Event> bucket = byStart.get(e.getFrom());
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == e) {
+                bucket.remove(i);
+                size--;
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            byStart.remove(e.getFrom());
+        }
+    }
+
+    /** Returns the number of scheduled events. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the scheduled events (other than {@code e} itself) that overlap {@code e}.
+     *
+     * @param e the event to check
+     * @return overlapping events ordered by start time
+     */
+    public List<Event> overlapping(Event e) {
+        List<Event> result = new ArrayList<>();
+        LocalDateTime windowStart = e.getFrom().minus(longest);
+        // Candidates start strictly before e ends and no earlier than the longest event could reach.
+        for (List<Event> bucket : byStart.subMap(windowStart, true, e.getTo(), false).values()) {
+            for (Event other : bucket) {
+                if (other != e && overlaps(e, other)) {
+                    result.add(other);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns every pair of overlapping events.
+     * <p>
+     * Events are visited in start order while a heap keeps the currently active
+     * events ordered by end time; each new event overlaps exactly the events
+     * still active when it starts.
+     *
+     * @return overlapping pairs, each ordered by start time
+     */
+    public List<Event[]> allConflicts() {
+        List<Event[]> pairs = new ArrayList<>();
+        PriorityQueue<Event> active = new PriorityQueue<>(
+                (a, b) -> a.getTo().compareTo(b.getTo()));
+        for (Map.Entry<LocalDateTime, List<Event>> entry : byStart.entrySet()) {
+            LocalDateTime start = entry.getKey();
+            while (!active.isEmpty() && !active.peek().getTo().isAfter(start)) {
+                active.poll();
+            }
+            for (Event e : entry.getValue()) {
+                for (Event other : active) {
+                    if (overlaps(e, other)) {
+                        pairs.add(new Event[] { other, e });
+                    }
+                }
+                active.add(e);
+            }
+        }
+        return pairs;
+    }
+
+    private static boolean overlaps(Event a, Event b) {
+        return a.getFrom().isBefore(b.getTo()) && b.getFrom().isBefore(a.getTo());
+    }
+}
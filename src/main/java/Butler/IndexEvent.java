@@ -0,0 +1,34 @@
+package Butler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event covering {@link TaskList}'s index maintenance:
+ * updating the event schedule and notifying listeners such as reminders.
+ */
+@Name("butler.Index")
+@Label("Index Update")
+@Category("Butler")
+@Description("Keeping the event schedule and task listeners in sync with the list")
+@StackTrace(false)
+class IndexEvent extends Event {
+    @Label("Operation")
+    @Description("build, add, remove or replace")
+    String operation;
+
+    @Label("Tasks")
+    @Description("Tasks indexed or unindexed by this operation")
+    int tasks;
+
+    @Label("Listeners")
+    int listeners;
+
+    @Label("Scheduled Events")
+    @Description("Events in the schedule afterwards")
+    int scheduled;
+}
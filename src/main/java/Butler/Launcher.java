@@ -2,11 +2,201 @@ package Butler;
 
 import javafx.application.Application;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * A launcher class to workaround classpath issues.
+ * <p>
+ * Without arguments the JavaFX GUI is started. Headless usage:
+ * <pre>
+ * java -jar Butler.jar --batch [script] [--data path] [--checkpoint N] [--metrics path]
+ * </pre>
+ * reads commands from {@code script} (or standard input) and prints each
+ * response to standard output. With {@code --metrics}, the per-command latency
+ * report is written to {@code path} when the script ends.
+ * <pre>
+ * java -jar Butler.jar --server [--port N | --socket path] [--data path] [--no-autosave]
+ *     [--nio | --tenants [--max-tenants N] [--max-tasks N]]
+ * </pre>
+ * shares one Butler with local clients over a loopback TCP port (default
+ * {@value #DEFAULT_PORT}) or a Unix-domain socket until interrupted; see
+ * {@link ButlerServer} for the protocol. With {@code --tenants} every user gets
+ * their own task file in the {@code --data} directory (default
+ * {@value #DEFAULT_TENANT_DIR}), and at most {@code --max-tenants} users or
+ * {@code --max-tasks} tasks are kept in memory. With {@code --nio} a single
+ * {@link SelectorServer} thread serves every client, suited to clients that
+ * pipeline many commands. Server clients can only {@code import} and
+ * {@code export} files in a {@value #TRANSFER_DIR} directory next to the task
+ * file, or in their own folder under it with {@code --tenants}.
  */
 public class Launcher {
+    static final int DEFAULT_PORT = 7878;
+    static final String DEFAULT_TENANT_DIR = "data/users";
+    /** Directory next to the task file that server clients import from and export to. */
+    static final String TRANSFER_DIR = TenantManager.TRANSFER_DIR;
+    static final int DEFAULT_MAX_TENANTS = 100;
+    static final long DEFAULT_MAX_TASKS = 1_000_000;
+
     public static void main(String[] args) {
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            System.exit(runBatch(args));
+        }
+        if (args.length > 0 && "--server".equals(args[0])) {
+            System.exit(runServer(args));
+        }
         Application.launch(Main.class, args);
     }
-}
\ No newline at end of file
+
+    private static int runBatch(String[] args) {
+        String script = null;
+        String dataPath = Storage.DEFAULT_FILE_PATH;
+        int checkpoint = 0;
+        String metricsPath = null;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                case "--data":
+                    dataPath = args[++i];
+                    break;
+                case "--checkpoint":
+                    checkpoint = Integer.parseInt(args[++i]);
+                    break;
+                case "--metrics":
+                    metricsPath = args[++i];
+                    break;
+                default:
+                    script = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            System.err.println("Usage: --batch [script] [--data path] [--checkpoint N] [--metrics path]");
+            return 2;
+        }
+
+        Butler butler = new Butler(dataPath);
+        try (Reader in = script == null
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            new BatchRunner(butler, checkpoint).run(in, out);
+            if (metricsPath != null) {
+                butler.dumpMetrics(Paths.get(metricsPath));
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int runServer(String[] args) {
+        int port = DEFAULT_PORT;
+        String socket = null;
+        String dataPath = null;
+        boolean autoSave = true;
+        boolean multiUser = false;
+        boolean nio = false;
+        int maxTenants = DEFAULT_MAX_TENANTS;
+        long maxTasks = DEFAULT_MAX_TASKS;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--socket":
+                    socket = args[++i];
+                    break;
+                case "--data":
+                    dataPath = args[++i];
+                    break;
+                case "--no-autosave":
+                    autoSave = false;
+                    break;
+                case "--tenants":
+                    multiUser = true;
+                    break;
+                case "--nio":
+                    nio = true;
+                    break;
+                case "--max-tenants":
+                    maxTenants = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-tasks":
+                    maxTasks = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (nio && multiUser) {
+                throw new IllegalArgumentException("--nio serves a single task list");
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Usage: --server [--port N | --socket path] [--data path] [--no-autosave]"
+                    + " [--nio | --tenants [--max-tenants N] [--max-tasks N]]");
+            return 2;
+        }
+
+        try {
+            Closeable server;
+            SocketAddress address;
+            if (multiUser) {
+                boolean save = autoSave;
+                TenantManager tenants = new TenantManager(
+                        Paths.get(dataPath == null ? DEFAULT_TENANT_DIR : dataPath), maxTenants, maxTasks,
+                        b -> b.setAutoSave(save));
+                ButlerServer s = socket == null
+                        ? new ButlerServer(tenants, port)
+                        : new ButlerServer(tenants, Paths.get(socket));
+                server = s.start();
+                address = s.address();
+            } else {
+                Path data = Paths.get(dataPath == null ? Storage.DEFAULT_FILE_PATH : dataPath).toAbsolutePath();
+                Butler butler = new Butler(data.toString());
+                butler.setAutoSave(autoSave);
+                // Clients may only import and export files next to the task file.
+                butler.setTransferDirectory(data.resolveSibling(TRANSFER_DIR));
+                if (nio) {
+                    SelectorServer s = socket == null
+                            ? new SelectorServer(butler, port)
+                            : new SelectorServer(butler, Paths.get(socket));
+                    server = s.start();
+                    address = s.address();
+                } else {
+                    ButlerServer s = socket == null
+                            ? new ButlerServer(butler, port)
+                            : new ButlerServer(butler, Paths.get(socket));
+                    server = s.start();
+                    address = s.address();
+                }
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    System.err.println("Could not stop cleanly: " + e.getMessage());
+                }
+            }));
+            System.err.println("Butler is listening on " + address);
+            Thread.currentThread().join();
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Could not start the server: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            return 0;
+        }
+    }
+}
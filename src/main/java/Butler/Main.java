@@ -1,5 +1,6 @@
 package Butler;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -7,15 +8,18 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
 
 /**
  * A GUI for Duke using FXML.
+ * <p>
+ * The window is shown before any tasks are read; {@link MainWindow} loads
+ * them in the background.
  */
 
 public class Main extends Application {
-    private static final String FILE_PATH = "data/butler.txt";
-
-    private Butler butler = new Butler(FILE_PATH);
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
 
     @Override
     public void start(Stage stage) {
@@ -24,10 +28,28 @@ public class Main extends Application {
             AnchorPane ap = fxmlLoader.load();
             Scene scene = new Scene(ap);
             stage.setScene(scene);
-            fxmlLoader.<MainWindow>getController().setButler(butler);  // inject the Duke instance
+            MainWindow window = fxmlLoader.getController();
+            stage.setOnHidden(event -> window.close());
+            reportFirstFrame();
             stage.show();
+            window.loadButler(Storage.DEFAULT_FILE_PATH);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Logs the time from JVM start to the first animation pulse, which is when
+     * the window gets its first frame.
+     */
+    private static void reportFirstFrame() {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+                LOGGER.info(() -> "Time to first frame: " + uptime + " ms");
+            }
+        }.start();
+    }
 }
@@ -1,64 +1,247 @@
 package Butler;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressBar loadProgress;
 
     private Butler butler;
 
+    /** Characters of conversation kept in memory; older messages are read back from the transcript file. */
+    private static final long TRANSCRIPT_CHAR_BUDGET = 1 << 20;
+    private static final String TRANSCRIPT_DIR = "data/transcripts";
+    /** Session transcripts kept on disk, this one included; older ones are deleted at startup. */
+    private static final int TRANSCRIPTS_KEPT = 10;
+    private static final String HISTORY_COMMAND = "history";
+    private static final String METRICS_FILE = "data/metrics.txt";
+    private static final long METRICS_DUMP_SECONDS = 60;
+    private static final int HISTORY_MAX_RESULTS = 20;
+
+    /**
+     * The conversation, spilled to a per-session transcript file; the list view
+     * only creates nodes for the visible messages.
+     */
+    private final Transcript messages = Transcript.openSession(Paths.get(TRANSCRIPT_DIR), TRANSCRIPTS_KEPT,
+            TRANSCRIPT_CHAR_BUDGET);
+
+    private static final Logger LOGGER = Logger.getLogger(MainWindow.class.getName());
+
+    private static final int EXIT_DELAY_SECONDS = 2;
+
+    /** Commands that take longer than this show a placeholder until their response arrives. */
+    private static final Duration PENDING_THRESHOLD = Duration.millis(300);
+    private static final String PENDING_TEXT = "Working on it...";
+
+    /**
+     * Runs Butler's commands one at a time, in submission order, away from the
+     * JavaFX application thread so that slow commands and disk writes never
+     * freeze the window.
+     */
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "butler-commands");
+        t.setDaemon(true);
+        return t;
+    });
+
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/User.png"));
     private Image butlerImage = new Image(this.getClass().getResourceAsStream("/images/Butler.png"));
 
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        dialogList.setItems(messages);
+        dialogList.setCellFactory(list -> new MessageCell(list, userImage, butlerImage));
+        dialogList.setFocusTraversable(false);
+        // Keep the newest message in view, as the old scroll pane binding did.
+        messages.addListener((ListChangeListener<Message>) change -> {
+            if (!messages.isEmpty()) {
+                dialogList.scrollTo(messages.size() - 1);
+            }
+        });
     }
 
-    /** Injects the Butler instance */
-    public void setButler(Butler b) {
-        butler = b;
-        showWelcome(); // Show welcome when Duke is injected
+    /**
+     * Shows the welcome message and loads Butler's tasks in the background.
+     * <p>
+     * Loading is the first job on the command thread, so commands typed while
+     * the task file is still being read simply queue up behind it and run, in
+     * order, once loading finishes.
+     *
+     * @param filePath the path to the file used to persist tasks
+     */
+    public void loadButler(String filePath) {
+        showWelcome();
+        loadProgress.setProgress(0);
+        loadProgress.setVisible(true);
+        commandExecutor.execute(() -> {
+            long startNanos = System.nanoTime();
+            Butler b = new Butler(filePath,
+                    fraction -> Platform.runLater(() -> loadProgress.setProgress(fraction)));
+            b.setExitHandler(() -> Platform.runLater(this::scheduleExit));
+            b.startReminders(text -> Platform.runLater(() -> showMessage(text)));
+            b.startWatching(text -> Platform.runLater(() -> showMessage(text)));
+            b.startMetricsDump(Paths.get(METRICS_FILE), METRICS_DUMP_SECONDS);
+            butler = b; // only read on this thread, by the commands queued after us
+            LOGGER.info(() -> String.format("Loaded tasks from %s in %d ms",
+                    filePath, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+            Platform.runLater(() -> loadProgress.setVisible(false));
+        });
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Butler's reply.
-     * Clears the user input after processing.
+     * Echoes the user input and runs it on the command thread; Butler's reply is
+     * added once it is ready. Clears the user input immediately.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = butler.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getButlerDialog(response, butlerImage)
-        );
         userInput.clear();
+        int inputIndex = messages.size();
+        messages.add(new Message(Message.Speaker.USER, input));
+
+        PendingReply reply = new PendingReply();
+        PauseTransition slow = new PauseTransition(PENDING_THRESHOLD);
+        slow.setOnFinished(event -> reply.showPlaceholder());
+        slow.play();
+        commandExecutor.execute(() -> {
+            String response = isHistoryCommand(input) ? searchHistory(input, inputIndex) : butler.getResponse(input);
+            Platform.runLater(() -> {
+                slow.stop();
+                reply.complete(response);
+            });
+        });
+    }
+
+    private static boolean isHistoryCommand(String input) {
+        String trimmed = input.trim();
+        return trimmed.equals(HISTORY_COMMAND) || trimmed.startsWith(HISTORY_COMMAND + " ");
+    }
+
+    /**
+     * Searches the whole conversation, including messages no longer held in
+     * memory, and describes the most recent matches before the history command
+     * itself. Runs on the command thread.
+     */
+    private String searchHistory(String input, int before) {
+        String keyword = input.trim().substring(HISTORY_COMMAND.length()).trim();
+        if (keyword.isEmpty()) {
+            return "⚠ Please specify a keyword to search the conversation for.";
+        }
+        ArrayDeque<String> recent = new ArrayDeque<>();
+        int[] total = {0};
+        try {
+            messages.search(keyword, (m, idx) -> {
+                if (idx >= before) {
+                    return;
+                }
+                total[0]++;
+                if (recent.size() == HISTORY_MAX_RESULTS) {
+                    recent.removeFirst();
+                }
+                recent.addLast("#" + (idx + 1) + " " + (m.getSpeaker() == Message.Speaker.USER ? "You" : "Butler")
+                        + ": " + m.getText());
+            });
+        } catch (IOException e) {
+            return "⚠ Could not read the conversation history: " + e.getMessage();
+        }
+        if (total[0] == 0) {
+            return "Nothing in our conversation mentions \"" + keyword + "\".";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Found ").append(total[0]).append(" earlier messages mentioning \"").append(keyword).append("\"");
+        if (total[0] > recent.size()) {
+            sb.append(", showing the latest ").append(recent.size());
+        }
+        sb.append(':');
+        for (String line : recent) {
+            sb.append("\n").append(line);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tracks where the reply to one command goes: a placeholder shown while the
+     * command is slow is replaced in place, otherwise the reply is appended.
+     * Only touched on the JavaFX application thread.
+     */
+    private final class PendingReply {
+        /** Index of the placeholder message; messages are only ever appended, so it stays valid. */
+        private int placeholderIndex = -1;
+        private boolean done;
+
+        void showPlaceholder() {
+            if (!done) {
+                placeholderIndex = messages.size();
+                messages.add(new Message(Message.Speaker.BUTLER, PENDING_TEXT));
+            }
+        }
+
+        void complete(String response) {
+            done = true;
+            Message reply = new Message(Message.Speaker.BUTLER, response);
+            if (placeholderIndex >= 0) {
+                messages.set(placeholderIndex, reply);
+            } else {
+                messages.add(reply);
+            }
+        }
+    }
+
+    /**
+     * Finishes writing the conversation and closes its transcript file.
+     * Called once the window has closed.
+     */
+    public void close() {
+        messages.close();
+    }
+
+    /**
+     * Schedules app exit after 2 seconds (2000 ms).
+     * Extracted to keep the happy path clear.
+     */
+    private void scheduleExit() {
+        PauseTransition delay = new PauseTransition(Duration.seconds(EXIT_DELAY_SECONDS));
+        delay.setOnFinished(event -> Platform.exit());
+        delay.play();
     }
 
     /**
      * Displays the welcome message shown when the chatbot starts.
      */
     public void showWelcome() {
-        dialogContainer.getChildren().add(
-                DialogBox.getButlerDialog("Hello! I'm Butler\nWhat can I do for you?", butlerImage)
-        );
+        addButlerMessage("Hello! I'm Butler\nWhat can I do for you?");
+    }
+
+    /** Appends a message from Butler to the conversation. */
+    private void addButlerMessage(String text) {
+        messages.add(new Message(Message.Speaker.BUTLER, text));
     }
 
     /**
@@ -71,9 +254,7 @@ public class MainWindow extends AnchorPane {
         for (String s : lines) {
             sb.append(s).append("\n");
         }
-        dialogContainer.getChildren().add(
-                DialogBox.getButlerDialog(sb.toString().trim(), butlerImage)
-        );
+        addButlerMessage(sb.toString().trim());
     }
 
     /**
@@ -82,9 +263,7 @@ public class MainWindow extends AnchorPane {
      * @param msg the error message to display
      */
     public void showError(String msg) {
-        dialogContainer.getChildren().add(
-                DialogBox.getButlerDialog("⚠ " + msg, butlerImage)
-        );
+        addButlerMessage("⚠ " + msg);
     }
 
     /**
@@ -97,26 +276,20 @@ public class MainWindow extends AnchorPane {
     public void printAdded(Task t, int total) {
         String message = "Got it. I've added this task:\n   " + t
                 + "\nNow you have " + total + " tasks in the list.";
-        dialogContainer.getChildren().add(
-                DialogBox.getButlerDialog(message, butlerImage)
-        );
+        addButlerMessage(message);
     }
 
     /**
      * Displays the entire task list in the GUI.
      */
     public void showTaskList(String listText) {
-        dialogContainer.getChildren().add(
-                DialogBox.getButlerDialog(listText, butlerImage)
-        );
+        addButlerMessage(listText);
     }
 
     /**
      * Displays search results in the GUI.
      */
     public void showTaskSearch(String resultsText) {
-        dialogContainer.getChildren().add(
-                DialogBox.getButlerDialog(resultsText, butlerImage)
-        );
+        addButlerMessage(resultsText);
     }
 }
@@ -0,0 +1,37 @@
+package Butler;
+
+/**
+ * One entry in the conversation transcript: who said it and what was said.
+ */
+public class Message {
+
+    /** The party that produced a message. */
+    public enum Speaker {
+        USER, BUTLER
+    }
+
+    private final Speaker speaker;
+    private final String text;
+
+    /**
+     * Creates a message.
+     *
+     * @param speaker who produced the message
+     * @param text    the message text
+     */
+    public Message(Speaker speaker, String text) {
+        assert speaker != null && text != null : "speaker and text must not be null";
+        this.speaker = speaker;
+        this.text = text;
+    }
+
+    /** Returns who produced this message. */
+    public Speaker getSpeaker() {
+        return speaker;
+    }
+
+    /** Returns the message text. */
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,49 @@
+package Butler;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+
+/**
+ * A list cell that renders a {@link Message} as a {@link DialogBox}.
+ * <p>
+ * The {@link ListView} only creates enough cells to fill the viewport and
+ * reuses them while scrolling, so each cell builds its dialog box once and
+ * then just swaps the text, picture and orientation.
+ */
+public class MessageCell extends ListCell<Message> {
+    /** Horizontal space reserved for the list's padding and vertical scroll bar. */
+    private static final double SCROLLBAR_ALLOWANCE = 20;
+
+    private final DialogBox box;
+    private final Image userImage;
+    private final Image butlerImage;
+
+    /**
+     * Creates a cell for the given list.
+     *
+     * @param list        the list the cell belongs to, used to size the dialog box
+     * @param userImage   the picture shown next to user messages
+     * @param butlerImage the picture shown next to Butler's messages
+     */
+    public MessageCell(ListView<Message> list, Image userImage, Image butlerImage) {
+        this.userImage = userImage;
+        this.butlerImage = butlerImage;
+        this.box = DialogBox.getUserDialog("", userImage);
+        box.prefWidthProperty().bind(list.widthProperty().subtract(SCROLLBAR_ALLOWANCE));
+        // Let the list's width drive wrapping instead of the text's natural width.
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(Message message, boolean empty) {
+        super.updateItem(message, empty);
+        if (empty || message == null) {
+            setGraphic(null);
+            return;
+        }
+        boolean isButler = message.getSpeaker() == Message.Speaker.BUTLER;
+        box.show(message.getText(), isButler ? butlerImage : userImage, isButler);
+        setGraphic(box);
+    }
+}
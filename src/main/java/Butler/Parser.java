@@ -2,8 +2,8 @@ package Butler;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.LocalTime;
+import java.util.Collection;
 
 /**
  * Utility class for parsing user input into commands and arguments,
@@ -17,12 +17,6 @@ public class Parser {
     public static final String DELIM_FROM = "/from ";
     public static final String DELIM_TO   = "/to ";
 
-    /** Date-time patterns (avoid magic strings). */
-    private static final DateTimeFormatter F_YYYY_MM_DD_HHMM =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-    private static final DateTimeFormatter F_YYYY_MM_DD_HH_COLON_MM =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
     /**
      * Splits a raw user command into the command word and its arguments.
      * <p>
@@ -56,8 +50,62 @@ public class Parser {
         return new String[] { s.substring(0, pos), s.substring(pos + delim.length()) };
     }
 
+    // ---- Tags ----
+
+    /**
+     * Returns whether a word is a tag: {@code #} followed by a letter and
+     * then letters, digits, {@code -} or {@code _}.
+     *
+     * @param word the word to check, without surrounding spaces
+     * @return true if the word is a tag
+     */
+    public static boolean isTag(String word) {
+        if (word.length() < 2 || word.charAt(0) != '#' || !Character.isLetter(word.charAt(1))) {
+            return false;
+        }
+        for (int i = 2; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes the tags out of a description as typed, e.g.
+     * {@code "read book #fun"} becomes {@code "read book"} with tag {@code fun}.
+     *
+     * @param text the description, possibly with tags among its words
+     * @param tags receives each tag found, without its {@code #}
+     * @return the description without its tags, trimmed
+     */
+    public static String extractTags(String text, Collection<String> tags) {
+        assert text != null && tags != null : "text and tags must not be null";
+        if (text.indexOf('#') < 0) {
+            return text.trim();
+        }
+        StringBuilder rest = new StringBuilder(text.length());
+        for (String word : text.trim().split("\\s+")) {
+            if (isTag(word)) {
+                tags.add(word.substring(1));
+            } else {
+                rest.append(rest.length() == 0 ? "" : " ").append(word);
+            }
+        }
+        return rest.toString();
+    }
+
     // ---- Level 8 date parsing helpers ----
 
+    private static final String DATE_FORMAT_HINT =
+            "Please use date format yyyy-MM-dd (e.g., 2019-10-15).";
+    private static final String DATETIME_FORMAT_HINT =
+            "Please use datetime format 'yyyy-MM-dd HHmm' or ISO 'yyyy-MM-ddTHH:mm'.";
+
+    /** Length of {@code yyyy-MM-dd}. */
+    private static final int DATE_LENGTH = 10;
+
     /**
      * Parses a string into a {@link LocalDate}.
      * <p>
@@ -69,11 +117,11 @@ public class Parser {
      */
     public static LocalDate parseLocalDate(String s) throws ButlerException {
         assert s != null && !s.isBlank() : "date string must be non-null and non-blank";
-        try {
-            return LocalDate.parse(s); // yyyy-MM-dd
-        } catch (DateTimeParseException e) {
-            throw new ButlerException("Please use date format yyyy-MM-dd (e.g., 2019-10-15).");
+        LocalDate d = tryParseLocalDate(s);
+        if (d == null) {
+            throw new ButlerException(DATE_FORMAT_HINT);
         }
+        return d;
     }
 
     /**
@@ -81,7 +129,8 @@ public class Parser {
      * <p>
      * Supported formats:
      * <ul>
-     *     <li>{@code yyyy-MM-ddTHH:mm} (ISO-8601, e.g., {@code 2019-10-15T18:00})</li>
+     *     <li>{@code yyyy-MM-ddTHH:mm} (ISO-8601, e.g., {@code 2019-10-15T18:00}),
+     *     optionally followed by {@code :ss} and a fraction of a second</li>
      *     <li>{@code yyyy-MM-dd HHmm} (e.g., {@code 2019-10-15 1800})</li>
      *     <li>{@code yyyy-MM-dd HH:mm} (e.g., {@code 2019-10-15 18:00})</li>
      * </ul>
@@ -92,16 +141,129 @@ public class Parser {
      */
     public static LocalDateTime parseLocalDateTime(String s) throws ButlerException {
         assert s != null && !s.isBlank() : "datetime string must be non-null and non-blank";
-        try {
-            if (s.contains("T")) {
-                return LocalDateTime.parse(s); // ISO-8601, e.g., 2019-10-15T18:00
-            } else if (s.contains(":")) {
-                return LocalDateTime.parse(s, F_YYYY_MM_DD_HH_COLON_MM);
-            } else {
-                return LocalDateTime.parse(s, F_YYYY_MM_DD_HHMM);
+        LocalDateTime dt = tryParseLocalDateTime(s);
+        if (dt == null) {
+            throw new ButlerException(DATETIME_FORMAT_HINT);
+        }
+        return dt;
+    }
+
+    /**
+     * Recognizes {@code yyyy-MM-dd} in a single pass without throwing.
+     *
+     * @param s the text to parse
+     * @return the date, or {@code null} if the text is not a valid date
+     */
+    public static LocalDate tryParseLocalDate(CharSequence s) {
+        if (s == null || s.length() != DATE_LENGTH) {
+            return null;
+        }
+        return scanDate(s);
+    }
+
+    /**
+     * Recognizes every format accepted by {@link #parseLocalDateTime(String)}
+     * in a single pass without throwing.
+     *
+     * @param s the text to parse
+     * @return the date-time, or {@code null} if the text is not a valid date-time
+     */
+    public static LocalDateTime tryParseLocalDateTime(CharSequence s) {
+        if (s == null || s.length() < DATE_LENGTH + 5) {
+            return null;
+        }
+        LocalDate date = scanDate(s);
+        if (date == null) {
+            return null;
+        }
+        int len = s.length();
+        char sep = s.charAt(DATE_LENGTH);
+        int hour = digits2(s, DATE_LENGTH + 1);
+        int minute;
+        int second = 0;
+        int nano = 0;
+        if (sep == ' ' && len == DATE_LENGTH + 5) {
+            minute = digits2(s, DATE_LENGTH + 3);                         // yyyy-MM-dd HHmm
+        } else if ((sep == ' ' || sep == 'T') && len >= DATE_LENGTH + 6
+                && s.charAt(DATE_LENGTH + 3) == ':') {
+            minute = digits2(s, DATE_LENGTH + 4);                         // yyyy-MM-dd[ T]HH:mm
+            int pos = DATE_LENGTH + 6;
+            if (sep == 'T' && pos < len) {                                // ISO :ss[.fraction]
+                if (len < pos + 3 || s.charAt(pos) != ':') {
+                    return null;
+                }
+                second = digits2(s, pos + 1);
+                pos += 3;
+                if (pos < len) {
+                    int fractionDigits = len - pos - 1;
+                    if (s.charAt(pos) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                        return null;
+                    }
+                    for (int i = pos + 1; i < len; i++) {
+                        int d = digit(s.charAt(i));
+                        if (d < 0) {
+                            return null;
+                        }
+                        nano = nano * 10 + d;
+                    }
+                    for (int i = fractionDigits; i < 9; i++) {
+                        nano *= 10;
+                    }
+                }
+            } else if (pos != len) {
+                return null;
             }
-        } catch (DateTimeParseException e) {
-            throw new ButlerException("Please use datetime format 'yyyy-MM-dd HHmm' or ISO 'yyyy-MM-ddTHH:mm'.");
+        } else {
+            return null;
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
         }
+        return LocalDateTime.of(date, LocalTime.of(hour, minute, second, nano));
+    }
+
+    /** Scans {@code yyyy-MM-dd} at the start of {@code s}, validating month and day ranges. */
+    private static LocalDate scanDate(CharSequence s) {
+        if (s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return null;
+        }
+        int hi = digits2(s, 0);
+        int lo = digits2(s, 2);
+        int month = digits2(s, 5);
+        int day = digits2(s, 8);
+        if (hi < 0 || lo < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        int year = hi * 100 + lo;
+        if (day > daysInMonth(year, month)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    /** Returns the two-digit number at {@code pos}, or -1 if either character is not a digit. */
+    private static int digits2(CharSequence s, int pos) {
+        int a = digit(s.charAt(pos));
+        int b = digit(s.charAt(pos + 1));
+        return (a < 0 || b < 0) ? -1 : a * 10 + b;
+    }
+
+    private static int digit(char c) {
+        return (c >= '0' && c <= '9') ? c - '0' : -1;
     }
 }
@@ -0,0 +1,173 @@
+package Butler;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps running counts of completed tasks per day, week and month, and of
+ * deadlines per month, so that reports never scan the task list.
+ * <p>
+ * As a {@link TaskListener} it sees every task that enters, changes or leaves
+ * the list, and adjusts a handful of counters for each: marking, unmarking or
+ * deleting a task costs O(1). Only tasks whose completion time is known count
+ * as completed; tasks done before completion times were recorded do not.
+ * <p>
+ * A deadline counts as missed if it was done after its date, or if it is
+ * still open and its date has passed. The second part depends on today's
+ * date, so open deadlines are counted per day and summed for the current
+ * month when a report asks.
+ */
+public class ProductivityStats implements TaskListener {
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEE MMM d yyyy");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMM yyyy");
+    /** Number of months of missed deadlines shown by a report. */
+    private static final int MISSED_MONTHS = 6;
+
+    /** How finely completed tasks are counted in a report, and how many periods it shows. */
+    public enum Period {
+        DAY(7), WEEK(8), MONTH(6);
+
+        private final int shown;
+
+        Period(int shown) {
+            this.shown = shown;
+        }
+    }
+
+    // ---------- Completed tasks, by completion time ----------
+    private final Map<Long, Integer> completedByDay = new HashMap<>();
+    private final Map<Long, Integer> completedByWeek = new HashMap<>();
+    private final Map<Long, Integer> completedByMonth = new HashMap<>();
+
+    // ---------- Deadlines, by due date ----------
+    /** Deadlines done after their date, by due month. */
+    private final Map<Long, Integer> lateByMonth = new HashMap<>();
+    private final Map<Long, Integer> openByMonth = new HashMap<>();
+    private final Map<Long, Integer> openByDay = new HashMap<>();
+
+    @Override
+    public void taskAdded(Task t) {
+        count(t, 1);
+    }
+
+    @Override
+    public void taskRemoved(Task t) {
+        count(t, -1);
+    }
+
+    private void count(Task t, int delta) {
+        LocalDateTime doneAt = t.getDoneAt();
+        if (t.isDone() && doneAt != null) {
+            LocalDate day = doneAt.toLocalDate();
+            bump(completedByDay, day.toEpochDay(), delta);
+            bump(completedByWeek, weekKey(day), delta);
+            bump(completedByMonth, monthKey(day), delta);
+        }
+        if (t instanceof Deadline) {
+            LocalDate by = ((Deadline) t).getBy();
+            if (!t.isDone()) {
+                bump(openByMonth, monthKey(by), delta);
+                bump(openByDay, by.toEpochDay(), delta);
+            } else if (doneAt != null && doneAt.toLocalDate().isAfter(by)) {
+                bump(lateByMonth, monthKey(by), delta);
+            }
+        }
+    }
+
+    private static void bump(Map<Long, Integer> counts, long key, int delta) {
+        counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static long weekKey(LocalDate day) {
+        return day.with(DayOfWeek.MONDAY).toEpochDay();
+    }
+
+    private static long monthKey(LocalDate day) {
+        return day.getYear() * 12L + day.getMonthValue() - 1;
+    }
+
+    // ---------- Queries ----------
+
+    /**
+     * Returns how many tasks were completed in the period holding {@code day}.
+     *
+     * @param period the length of the period
+     * @param day    any day in the period
+     * @return the number of tasks completed then
+     */
+    public int completed(Period period, LocalDate day) {
+        switch (period) {
+        case DAY:
+            return completedByDay.getOrDefault(day.toEpochDay(), 0);
+        case WEEK:
+            return completedByWeek.getOrDefault(weekKey(day), 0);
+        default:
+            return completedByMonth.getOrDefault(monthKey(day), 0);
+        }
+    }
+
+    /**
+     * Returns how many deadlines in the given month were missed, as of today.
+     *
+     * @param month the month the deadlines were due in
+     * @param today the current date
+     * @return deadlines done late, plus open ones whose date has passed
+     */
+    public int missed(YearMonth month, LocalDate today) {
+        long key = monthKey(month.atDay(1));
+        int missed = lateByMonth.getOrDefault(key, 0);
+        YearMonth current = YearMonth.from(today);
+        if (month.isBefore(current)) {
+            missed += openByMonth.getOrDefault(key, 0);
+        } else if (month.equals(current)) {
+            for (LocalDate d = month.atDay(1); d.isBefore(today); d = d.plusDays(1)) {
+                missed += openByDay.getOrDefault(d.toEpochDay(), 0);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * Formats the tasks completed in the last few periods up to today, and the
+     * deadlines missed in the last {@value #MISSED_MONTHS} months.
+     *
+     * @param period how finely to count completed tasks
+     * @param today  the current date
+     * @return the report, most recent period first
+     */
+    public String report(Period period, LocalDate today) {
+        StringBuilder sb = new StringBuilder("Tasks completed per ")
+                .append(period.name().toLowerCase(Locale.ROOT)).append(":\n");
+        for (int i = 0; i < period.shown; i++) {
+            LocalDate day;
+            String label;
+            switch (period) {
+            case DAY:
+                day = today.minusDays(i);
+                label = DAY_FORMAT.format(day);
+                break;
+            case WEEK:
+                day = today.with(DayOfWeek.MONDAY).minusWeeks(i);
+                label = "week of " + Task.DISPLAY_DATE.format(day);
+                break;
+            default:
+                day = today.withDayOfMonth(1).minusMonths(i);
+                label = MONTH_FORMAT.format(day);
+            }
+            sb.append(" ").append(label).append(": ").append(completed(period, day)).append("\n");
+        }
+        sb.append("Deadlines missed per month:\n");
+        for (int i = 0; i < MISSED_MONTHS; i++) {
+            YearMonth month = YearMonth.from(today).minusMonths(i);
+            sb.append(" ").append(MONTH_FORMAT.format(month)).append(": ")
+                    .append(missed(month, today)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,97 @@
+package Butler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Schedules reminders ahead of deadlines and event start times.
+ * <p>
+ * All pending reminders live in a single {@link TimingWheel} that is advanced
+ * by one daemon thread, so the cost of a pending reminder is a few objects
+ * rather than a timer or thread each. The service listens to a
+ * {@link TaskList}, so reminders follow tasks as they are added, marked,
+ * rescheduled and deleted. Done tasks get no reminders.
+ */
+public class ReminderService implements TaskListener {
+
+    /** How long before a task's due/start time each reminder fires. */
+    private static final Duration[] OFFSETS = { Duration.ofDays(1), Duration.ofHours(1) };
+    private static final String[] OFFSET_LABELS = { "1 day", "1 hour" };
+
+    // ---------- Wheel geometry: 1 s ticks, 64^5 s (~34 years) before parking ----------
+    private static final long TICK_MILLIS = 1000;
+    private static final int LEVELS = 5;
+
+    private final TimingWheel<String> wheel =
+            new TimingWheel<>(TICK_MILLIS, LEVELS, System.currentTimeMillis());
+    private final Map<Task, List<TimingWheel.Timeout<String>>> scheduled = new IdentityHashMap<>();
+    private Thread ticker;
+
+    @Override
+    public synchronized void taskAdded(Task t) {
+        LocalDateTime anchor = t.reminderTime();
+        if (anchor == null || t.isDone()) {
+            return;
+        }
+        long anchorMillis = anchor.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long now = System.currentTimeMillis();
+        List<TimingWheel.Timeout<String>> handles = new ArrayList<>(OFFSETS.length);
+        for (int i = 0; i < OFFSETS.length; i++) {
+            long at = anchorMillis - OFFSETS[i].toMillis();
+            if (at > now) {
+                // Snapshot the text now: any later change to the task reschedules this reminder.
+                String text = "Reminder (" + OFFSET_LABELS[i] + " to go):\n   " + t;
+                handles.add(wheel.schedule(at, text));
+            }
+        }
+        if (!handles.isEmpty()) {
+            scheduled.put(t, handles);
+        }
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task t) {
+        List<TimingWheel.Timeout<String>> handles = scheduled.remove(t);
+        if (handles != null) {
+            for (TimingWheel.Timeout<String> h : handles) {
+                wheel.cancel(h);
+            }
+        }
+    }
+
+    /** Returns the number of reminders waiting to fire. */
+    public int pending() {
+        return wheel.pending();
+    }
+
+    /**
+     * Starts delivering due reminders to the given sink on a daemon thread.
+     * The sink is called from that thread. Calling this again has no effect.
+     *
+     * @param sink receives the text of each reminder
+     */
+    public synchronized void start(Consumer<String> sink) {
+        assert sink != null : "reminder sink must not be null";
+        if (ticker != null) {
+            return;
+        }
+        ticker = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.sleep(TICK_MILLIS);
+                    wheel.advanceTo(System.currentTimeMillis(), sink);
+                }
+            } catch (InterruptedException e) {
+                // exit quietly
+            }
+        }, "butler-reminders");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+}
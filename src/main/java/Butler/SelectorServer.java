@@ -0,0 +1,383 @@
+package Butler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves one shared {@link Butler} to many clients from a single
+ * {@link Selector} thread, for clients that pipeline many commands at once.
+ * <p>
+ * The protocol is the same as {@link ButlerServer}'s. The selector thread
+ * reads into a reusable direct buffer per connection and splits it into
+ * lines; whatever complete lines have arrived form a batch, which a worker
+ * runs in order inside {@link Butler#inBatch}, so the whole batch is saved
+ * once, and any conflicts that save meets are told with the batch's last
+ * response. The responses go back with gathering writes, without being copied
+ * into one buffer. Each connection has at most one batch running, so its
+ * responses stay in order; lines that arrive meanwhile form the next batch.
+ */
+public class SelectorServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SelectorServer.class.getName());
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_LINE = 1024 * 1024;
+    /** Stop reading from a client that has this many lines waiting for a worker. */
+    private static final int MAX_PENDING_LINES = 10_000;
+    private static final ByteBuffer SEPARATOR =
+            ByteBuffer.wrap("\n\n".getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+
+    /** Set by Butler's exit handler on the worker whose client said {@code bye}. */
+    private static final ThreadLocal<Boolean> BYE_REQUESTED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /** State of one client, touched only by the selector thread. */
+    private static final class Connection {
+        final SocketChannel channel;
+        ByteBuffer in;
+        byte[] line = new byte[256];
+        final List<String> pending = new ArrayList<>();
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        boolean running;
+        boolean closing;
+
+        Connection(SocketChannel channel, ByteBuffer in) {
+            this.channel = channel;
+            this.in = in;
+        }
+    }
+
+    /** The responses to one batch, handed from a worker back to the selector thread. */
+    private static final class Result {
+        final Connection connection;
+        final List<ByteBuffer> buffers;
+        final boolean bye;
+
+        Result(Connection connection, List<ByteBuffer> buffers, boolean bye) {
+            this.connection = connection;
+            this.buffers = buffers;
+            this.bye = bye;
+        }
+    }
+
+    private final Butler butler;
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+    /** Input buffers of closed connections, kept for new ones. */
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+    private volatile boolean running = true;
+    private Thread loop;
+
+    /**
+     * Listens on the loopback interface.
+     *
+     * @param butler the Butler to serve; its exit handler is replaced
+     * @param port   the TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public SelectorServer(Butler butler, int port) throws IOException {
+        this(butler, ServerSocketChannel.open(), ButlerServer.loopback(port), null);
+    }
+
+    /**
+     * Listens on a Unix-domain socket, replacing any stale socket file.
+     *
+     * @param butler     the Butler to serve; its exit handler is replaced
+     * @param socketFile the socket path
+     * @throws IOException if the socket cannot be bound
+     */
+    public SelectorServer(Butler butler, Path socketFile) throws IOException {
+        this(butler, ServerSocketChannel.open(StandardProtocolFamily.UNIX), ButlerServer.deleteStale(socketFile),
+                socketFile);
+    }
+
+    private SelectorServer(Butler butler, ServerSocketChannel server, SocketAddress address, Path socketFile)
+            throws IOException {
+        this.butler = butler;
+        this.server = server;
+        this.socketFile = socketFile;
+        server.bind(address);
+        server.configureBlocking(false);
+        selector = Selector.open();
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        AtomicInteger n = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "butler-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        butler.setExitHandler(() -> BYE_REQUESTED.set(Boolean.TRUE));
+    }
+
+    /** Returns the address the server is listening on. */
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Starts serving clients on a background thread.
+     *
+     * @return this server
+     */
+    public SelectorServer start() {
+        loop = new Thread(this::selectLoop, "butler-selector");
+        loop.start();
+        return this;
+    }
+
+    // ---------- Selector thread ----------
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Result r;
+                while ((r = results.poll()) != null) {
+                    finishBatch(r);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection c = (Connection) key.attachment();
+                        if (key.isWritable()) {
+                            write(c);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(c);
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() instanceof Connection) {
+                            close((Connection) key.attachment());
+                        } else {
+                            LOGGER.log(Level.WARNING, "Could not accept a client", e);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                LOGGER.log(Level.SEVERE, "Selector failed", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        ByteBuffer in = freeBuffers.isEmpty() ? ByteBuffer.allocateDirect(BUFFER_SIZE) : freeBuffers.pop();
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel, in));
+    }
+
+    private void read(Connection c) throws IOException {
+        int n = c.channel.read(c.in);
+        if (n < 0) {
+            // The client has sent everything; answer what is left, then close.
+            c.closing = true;
+            setInterest(c, SelectionKey.OP_READ, false);
+            if (!c.running && c.pending.isEmpty() && c.out.isEmpty()) {
+                close(c);
+            }
+        } else {
+            splitLines(c);
+        }
+        if (!c.running && !c.pending.isEmpty()) {
+            runBatch(c);
+        }
+    }
+
+    /** Moves every complete line in the input buffer to the pending list. */
+    private void splitLines(Connection c) throws IOException {
+        ByteBuffer in = c.in;
+        in.flip();
+        int start = in.position();
+        for (int i = start; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+                c.pending.add(decode(c, start, end));
+                start = i + 1;
+            }
+        }
+        in.position(start);
+        in.compact();
+        if (!in.hasRemaining()) {
+            if (in.capacity() >= MAX_LINE) {
+                throw new IOException("line too long");
+            }
+            ByteBuffer bigger = ByteBuffer.allocateDirect(in.capacity() * 2);
+            in.flip();
+            bigger.put(in);
+            c.in = bigger;
+        }
+        if (c.pending.size() >= MAX_PENDING_LINES) {
+            setInterest(c, SelectionKey.OP_READ, false);
+        }
+    }
+
+    private static String decode(Connection c, int start, int end) {
+        int length = end - start;
+        if (c.line.length < length) {
+            c.line = new byte[Math.max(length, c.line.length * 2)];
+        }
+        c.in.get(start, c.line, 0, length);
+        return new String(c.line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void runBatch(Connection c) {
+        List<String> lines = new ArrayList<>(c.pending);
+        c.pending.clear();
+        c.running = true;
+        if (!c.closing) {
+            setInterest(c, SelectionKey.OP_READ, true);
+        }
+        workers.execute(() -> execute(c, lines));
+    }
+
+    private void finishBatch(Result r) {
+        Connection c = r.connection;
+        c.running = false;
+        if (!c.channel.isOpen()) {
+            return;
+        }
+        c.out.addAll(r.buffers);
+        if (r.bye) {
+            c.closing = true;
+            c.pending.clear();
+            setInterest(c, SelectionKey.OP_READ, false);
+        }
+        try {
+            write(c);
+        } catch (IOException e) {
+            close(c);
+            return;
+        }
+        if (c.channel.isOpen() && !c.pending.isEmpty()) {
+            runBatch(c);
+        }
+    }
+
+    /** Writes as much queued output as the socket takes, in one gathering write. */
+    private void write(Connection c) throws IOException {
+        if (!c.out.isEmpty()) {
+            c.channel.write(c.out.toArray(new ByteBuffer[0]));
+            while (!c.out.isEmpty() && !c.out.peek().hasRemaining()) {
+                c.out.poll();
+            }
+        }
+        setInterest(c, SelectionKey.OP_WRITE, !c.out.isEmpty());
+        if (c.out.isEmpty() && c.closing && !c.running && c.pending.isEmpty()) {
+            close(c);
+        }
+    }
+
+    private void setInterest(Connection c, int op, boolean on) {
+        SelectionKey key = c.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            key.interestOps(on ? key.interestOps() | op : key.interestOps() & ~op);
+        }
+    }
+
+    private void close(Connection c) {
+        if (!c.channel.isOpen()) {
+            return;
+        }
+        try {
+            c.channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        if (c.in.capacity() == BUFFER_SIZE) {
+            c.in.clear();
+            freeBuffers.push(c.in);
+        }
+    }
+
+    // ---------- Worker threads ----------
+
+    /**
+     * Runs one batch, stopping after {@code bye}, and hands the encoded
+     * responses to the selector thread.
+     */
+    private void execute(Connection c, List<String> lines) {
+        List<ByteBuffer> buffers = new ArrayList<>(2 * lines.size());
+        BYE_REQUESTED.set(Boolean.FALSE);
+        try {
+            String note = butler.inBatch(() -> {
+                for (String line : lines) {
+                    buffers.add(StandardCharsets.UTF_8.encode(butler.getResponse(line)));
+                    buffers.add(SEPARATOR.duplicate());
+                    if (BYE_REQUESTED.get()) {
+                        return;
+                    }
+                }
+            });
+            if (!note.isEmpty() && !buffers.isEmpty()) {
+                // Told with the batch's last response, before its separator.
+                buffers.add(buffers.size() - 1, StandardCharsets.UTF_8.encode(note));
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Command failed", e);
+        } finally {
+            results.add(new Result(c, buffers, BYE_REQUESTED.get()));
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Stops serving, disconnects the clients and saves any unsaved changes.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            if (loop != null) {
+                loop.join();
+            }
+            workers.shutdown();
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        butler.flush();
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+}
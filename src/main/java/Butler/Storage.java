@@ -1,14 +1,24 @@
 package Butler;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleConsumer;
 
 /**
  * Handles persistence of tasks to and from the local filesystem.
@@ -23,9 +33,20 @@ import java.util.List;
  *     <li>{@code D|0|return book|2019-12-02}</li>
  *     <li>{@code E|1|project meeting|2019-12-02T14:00|2019-12-02T16:00}</li>
  * </ul>
+ * Tasks may end with their tags and, once done, the time they were done, e.g.
+ * {@code T|1|read book|#fun #reading|@2019-12-02T18:30:05}.
+ * Files whose names end in {@value BlockFile#EXTENSION} hold the same lines in
+ * independently compressed blocks; see {@link BlockFile}.
  */
 public class Storage {
+    /** Default location of the task file, relative to the working directory. */
+    public static final String DEFAULT_FILE_PATH = "data/butler.txt";
+
     private final Path dataPath;
+    /** Sidecar file that writers lock, holding the version stamp of the task file. */
+    private final Path lockPath;
+    /** Whether the file is block-compressed rather than plain text. */
+    private final boolean blockFormat;
 
     // ---------- Storage format specifics (avoid magic) ----------
     private static final String DELIM_REGEX = "\\s*\\|\\s*";
@@ -33,6 +54,43 @@ public class Storage {
     private static final String TYPE_DEADLINE = "D";
     private static final String TYPE_EVENT = "E";
 
+    /** Number of progress updates reported while loading a file. */
+    private static final int PROGRESS_STEPS = 100;
+
+    /** One monitor per task file, since a JVM cannot lock a file it already holds locked. */
+    private static final ConcurrentHashMap<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    // ---------- What the file held when last read or written ----------
+    /** Version stamp from the lock file, bumped by every save. */
+    private long knownVersion;
+    /** Size and modification time, to tell our own writes from other programs'; -1 if unknown. */
+    private long knownSize = -1;
+    private long knownModified;
+    /** Hashes of the tasks' lines as {@link Task#serialize} writes them, one per task, in order. */
+    private long[] lineHashes = new long[0];
+    private int lineCount;
+    /** Where the file's last line starts, and its hash, to check that a longer file was only appended to. */
+    private long lastLineStart = -1;
+    private long lastLineHash;
+    /** Tasks the last merge kept in one version although the other side changed them too. */
+    private List<Task> mergeConflicts = List.of();
+
+    /**
+     * What changed in the file since it was last read or written: tasks
+     * {@code from} to {@code from + removed} were replaced by {@code added}.
+     */
+    static final class Change {
+        final int from;
+        final int removed;
+        final List<Task> added;
+
+        Change(int from, int removed, List<Task> added) {
+            this.from = from;
+            this.removed = removed;
+            this.added = added;
+        }
+    }
+
     /**
      * Constructs a {@code Storage} object with the specified file path.
      *
@@ -42,6 +100,8 @@ public class Storage {
     public Storage(String filePath) {
         assert filePath != null && !filePath.isBlank() : "filePath must be non-null and non-blank";
         this.dataPath = Paths.get(filePath); // e.g., "data/butler.txt"
+        this.blockFormat = BlockFile.isBlockFile(dataPath);
+        this.lockPath = dataPath.resolveSibling(dataPath.getFileName() + ".lock");
     }
 
     /**
@@ -53,26 +113,113 @@ public class Storage {
      * @return a list of {@link Task} objects loaded from disk
      */
     public ArrayList<Task> load() {
+        return load(fraction -> { });
+    }
+
+    /**
+     * Loads tasks from the backing file, reporting progress as it goes.
+     * <p>
+     * Progress is reported as the fraction of the file read so far, in steps
+     * of at least one percent (or one block), and always ends with {@code 1.0}.
+     *
+     * @param progress receives the fraction of the file read, from 0.0 to 1.0
+     * @return a list of {@link Task} objects loaded from disk
+     */
+    public ArrayList<Task> load(DoubleConsumer progress) {
+        assert progress != null : "progress listener must not be null";
+        StorageEvent event = new StorageEvent();
+        event.begin();
         ArrayList<Task> loaded = new ArrayList<>();
+        long total = 0;
+        int lines = 0;
         try {
             assert dataPath != null : "dataPath must not be null";
             if (dataPath.getParent() != null) {
                 Files.createDirectories(dataPath.getParent());
             }
-            if (!Files.exists(dataPath)) return loaded;
-
-            List<String> lines = Files.readAllLines(dataPath, StandardCharsets.UTF_8);
-            for (String raw : lines) {
-                Task t = parseLineToTask(raw);
-                if (t != null) {
-                    loaded.add(t);
+            knownVersion = readVersion(); // before the file, so a newer file never pairs with an older version
+            if (blockFormat && Files.exists(dataPath)) {
+                total = Files.size(dataPath);
+                long modified = Files.getLastModifiedTime(dataPath).toMillis();
+                loaded = BlockFile.readAll(dataPath, this::parseLineToTask, progress);
+                lines = loaded.size();
+                remember(total, modified, hashAll(loaded), loaded.size());
+            } else if (Files.exists(dataPath)) {
+                total = Files.size(dataPath);
+                long modified = Files.getLastModifiedTime(dataPath).toMillis();
+                long step = Math.max(1, total / PROGRESS_STEPS);
+                long read = 0;
+                long nextReport = step;
+                long offset = 0;
+                long[] hashes = new long[1024];
+                try (BufferedReader reader = Files.newBufferedReader(dataPath, StandardCharsets.UTF_8)) {
+                    String raw;
+                    while ((raw = reader.readLine()) != null) {
+                        lines++;
+                        Task t = parseLineToTask(raw);
+                        if (t != null) {
+                            loaded.add(t);
+                            if (loaded.size() > hashes.length) {
+                                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                            }
+                            hashes[loaded.size() - 1] = hash(t.serialize());
+                        }
+                        lastLineStart = offset;
+                        lastLineHash = hash(raw);
+                        offset += utf8Length(raw) + 1;
+                        read += raw.length() + 1; // chars approximate bytes for this mostly-ASCII format
+                        if (read >= nextReport) {
+                            progress.accept(Math.min(1.0, (double) read / Math.max(1, total)));
+                            nextReport = read + step;
+                        }
+                    }
                 }
+                remember(total, modified, hashes, loaded.size());
+            } else {
+                remember(0, 0, new long[0], 0);
             }
         } catch (IOException e) {
             // ignore -> start with empty list
         } catch (Exception e) {
             // ignore corrupted lines -> keep what we successfully parsed
         }
+        progress.accept(1.0);
+        commit(event, "load", total, lines, false);
+        return loaded;
+    }
+
+    /**
+     * Loads only the tasks at positions {@code from} (inclusive) to {@code to}
+     * (exclusive). For block-compressed files only the blocks holding them are
+     * read; plain files are read up to {@code to}.
+     *
+     * @param from the position of the first task wanted, from 0
+     * @param to   one past the position of the last task wanted
+     * @return the tasks in that range, fewer if the file holds fewer
+     */
+    public List<Task> loadRange(int from, int to) {
+        assert 0 <= from && from <= to : "range must be non-negative and ordered";
+        List<Task> loaded = new ArrayList<>();
+        try {
+            if (blockFormat) {
+                return BlockFile.readRange(dataPath, from, to, this::parseLineToTask);
+            }
+            try (BufferedReader reader = Files.newBufferedReader(dataPath, StandardCharsets.UTF_8)) {
+                int position = 0;
+                String raw;
+                while (position < to && (raw = reader.readLine()) != null) {
+                    Task t = parseLineToTask(raw);
+                    if (t != null) {
+                        if (position >= from) {
+                            loaded.add(t);
+                        }
+                        position++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // missing or unreadable file -> nothing to return
+        }
         return loaded;
     }
 
@@ -80,23 +227,404 @@ public class Storage {
      * Saves the given list of tasks to the backing file.
      * <p>
      * Each task is serialized using its {@link Task#serialize()} method.
-     * Existing content in the file will be replaced.
+     * Existing content in the file will be replaced, unless another process
+     * saved it after this storage last read or wrote it: then both sets of
+     * changes are merged (see {@link TaskMerge}), the merged tasks are written
+     * instead, and returned so that the caller can show them.
+     * <p>
+     * The file is written beside the old one, forced to disk and moved into
+     * place, so readers never see half a file, nor a crash an empty one. Other writers are kept out with a lock on
+     * {@code <file>.lock} only while the file is checked and moved.
      *
      * @param tasks the list of tasks to persist
+     * @return the merged tasks if another process's changes were merged in,
+     *         or null if exactly {@code tasks} were saved
+     * @see #takeMergeConflicts()
      */
-    public void save(List<Task> tasks) {
+    public List<Task> save(List<Task> tasks) {
         assert tasks != null : "tasks list to save must not be null";
-        List<String> out = new ArrayList<>();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        List<Task> saving = new ArrayList<>(tasks.size());
         for (Task t : tasks) {
-            if (t != null) out.add(t.serialize());  // polymorphic, no instanceof
+            if (t != null) saving.add(t);
         }
         try {
-            if (dataPath.getParent() != null) {
-                Files.createDirectories(dataPath.getParent());
+            Path dir = dataPath.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, dataPath.getFileName() + ".", ".tmp");
+            try {
+                return saveVia(temp, saving, event);
+            } finally {
+                Files.deleteIfExists(temp);
             }
-            Files.write(dataPath, out, StandardCharsets.UTF_8);
         } catch (IOException e) {
-            // ignore write errors for now
+            return null; // ignore write errors for now
+        }
+    }
+
+    /**
+     * Returns the tasks that the last merging save kept in one version,
+     * although the other process had changed or deleted them differently,
+     * and forgets them.
+     *
+     * @return the conflicting tasks as saved; empty if there were none
+     */
+    public List<Task> takeMergeConflicts() {
+        List<Task> conflicts = mergeConflicts;
+        mergeConflicts = List.of();
+        return conflicts;
+    }
+
+    private List<Task> saveVia(Path temp, List<Task> tasks, StorageEvent event) throws IOException {
+        // Do the slow part, writing the file, before taking the lock.
+        long[] hashes = new long[tasks.size()];
+        long bytes = writeFile(temp, tasks, hashes);
+        List<Task> merged = null;
+        List<Task> saved = tasks;
+        synchronized (monitorFor(dataPath)) {
+            try (FileChannel ch = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock held = ch.lock();
+                try {
+                    long version = readVersion(ch);
+                    if (changedByOthers(version)) {
+                        List<Task> theirs = new ArrayList<>();
+                        long[] theirHashes = readCurrent(theirs);
+                        TaskMerge.Result result = TaskMerge.merge(lineHashes, lineCount, tasks, hashes,
+                                theirs, theirHashes);
+                        merged = result.tasks;
+                        mergeConflicts = result.conflicts;
+                        saved = merged;
+                        hashes = new long[merged.size()];
+                        bytes = writeFile(temp, merged, hashes);
+                    }
+                    Files.move(temp, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    ch.write(ByteBuffer.allocate(Long.BYTES).putLong(0, version + 1), 0);
+                    knownVersion = version + 1;
+                    if (blockFormat || saved.isEmpty()) {
+                        lastLineStart = -1;
+                    } else {
+                        lastLineStart = bytes - utf8Length(saved.get(saved.size() - 1).serialize()) - 1;
+                        lastLineHash = hashes[hashes.length - 1];
+                    }
+                    remember(bytes, Files.getLastModifiedTime(dataPath).toMillis(), hashes, hashes.length);
+                } finally {
+                    held.release();
+                }
+            }
+        }
+        commit(event, merged == null ? "save" : "merge", bytes, saved.size(), true);
+        return merged;
+    }
+
+    /**
+     * Writes the tasks to {@code file} in this storage's format, filling in
+     * the hash of each task's line as it goes, and forces it to disk.
+     *
+     * @return the size of the file
+     */
+    private long writeFile(Path file, List<Task> tasks, long[] hashes) throws IOException {
+        if (blockFormat) {
+            BlockFile.write(file, tasks, hashes);
+        } else {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < hashes.length; i++) {
+                    String line = tasks.get(i).serialize();  // polymorphic, no instanceof
+                    hashes[i] = hash(line);
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        }
+        // A rename can reach the disk before the data, leaving an empty file after a crash.
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.force(false);
+            return ch.size();
+        }
+    }
+
+    // ---------- Change tracking ----------
+
+    /** Returns the path of the backing file. */
+    Path path() {
+        return dataPath;
+    }
+
+    /**
+     * Works out what another program changed in the file since this storage
+     * last read or wrote it, reading as little as it can.
+     * <p>
+     * If the file only grew and its last known line is still in place, only
+     * the new bytes are read, up to the last complete line. Otherwise the file
+     * is hashed line by line, the unchanged lines at the start and end are
+     * matched against the known ones, and only the lines between are parsed.
+     * Plain-text files only.
+     *
+     * @return the change, or null if there is none or it cannot be read
+     */
+    Change readChanges() {
+        if (blockFormat || knownSize < 0) {
+            return null;
+        }
+        try {
+            if (!Files.exists(dataPath)) {
+                return null; // deleted, perhaps about to be replaced; keep what we have
+            }
+            long size = Files.size(dataPath);
+            long modified = Files.getLastModifiedTime(dataPath).toMillis();
+            if (size == knownSize && modified == knownModified) {
+                return null;
+            }
+            Change c = size > knownSize && lastLineUnchanged()
+                    ? readAppended(size, modified)
+                    : reconcile(modified);
+            return c == null || (c.removed == 0 && c.added.isEmpty()) ? null : c;
+        } catch (IOException e) {
+            return null; // try again on the next change
+        }
+    }
+
+    /** Checks that the last line read or written is still where it was. */
+    private boolean lastLineUnchanged() throws IOException {
+        if (lastLineStart < 0) {
+            return knownSize == 0;
+        }
+        try (FileChannel ch = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            byte[] bytes = readBytes(ch, lastLineStart, (int) (knownSize - lastLineStart));
+            return bytes.length > 0 && bytes[bytes.length - 1] == '\n'
+                    && hash(new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8)) == lastLineHash;
+        }
+    }
+
+    /** Reads the complete lines added after the known end of the file. */
+    private Change readAppended(long size, long modified) throws IOException {
+        byte[] bytes;
+        try (FileChannel ch = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            bytes = readBytes(ch, knownSize, (int) (size - knownSize));
+        }
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--; // leave a partly written last line for next time
+        }
+        if (end == 0) {
+            return null;
+        }
+        List<Task> added = new ArrayList<>();
+        long[] hashes = Arrays.copyOf(lineHashes, Math.max(lineCount + 16, lineHashes.length));
+        int count = lineCount;
+        int start = 0;
+        for (int i = 0; i < end; i++) {
+            if (bytes[i] == '\n') {
+                String raw = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+                Task t = parseLineToTask(raw);
+                if (t != null) {
+                    added.add(t);
+                    if (count == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                    }
+                    hashes[count++] = hash(t.serialize());
+                }
+                lastLineStart = knownSize + start;
+                lastLineHash = hash(raw);
+                start = i + 1;
+            }
+        }
+        int from = lineCount;
+        // Only the complete lines count as read; the rest is picked up once it is finished.
+        remember(knownSize + end, end == bytes.length ? modified : -1, hashes, count);
+        return new Change(from, 0, added);
+    }
+
+    /**
+     * Matches the file's lines against the known ones and parses only those
+     * that differ. A line not written the way Butler writes it never matches,
+     * so it is parsed again.
+     */
+    private Change reconcile(long modified) throws IOException {
+        long[] fresh = new long[Math.max(16, lineCount)];
+        int freshCount = 0;
+        long offset = 0;
+        long lastStart = -1;
+        long lastHash = 0;
+        try (BufferedReader reader = Files.newBufferedReader(dataPath, StandardCharsets.UTF_8)) {
+            String raw;
+            while ((raw = reader.readLine()) != null) {
+                long h = hash(raw);
+                lastStart = offset;
+                lastHash = h;
+                offset += utf8Length(raw) + 1;
+                if (raw.isBlank()) {
+                    continue;
+                }
+                if (freshCount == fresh.length) {
+                    fresh = Arrays.copyOf(fresh, fresh.length * 2);
+                }
+                fresh[freshCount++] = h;
+            }
+        }
+
+        int prefix = 0;
+        while (prefix < lineCount && prefix < freshCount && fresh[prefix] == lineHashes[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < lineCount - prefix && suffix < freshCount - prefix
+                && fresh[freshCount - 1 - suffix] == lineHashes[lineCount - 1 - suffix]) {
+            suffix++;
+        }
+
+        // Parse only the lines between the unchanged start and end.
+        List<Task> added = new ArrayList<>();
+        long[] addedHashes = new long[freshCount - prefix - suffix];
+        try (BufferedReader reader = Files.newBufferedReader(dataPath, StandardCharsets.UTF_8)) {
+            int index = 0;
+            String raw;
+            while (index < freshCount - suffix && (raw = reader.readLine()) != null) {
+                if (raw.isBlank()) {
+                    continue;
+                }
+                if (index >= prefix) {
+                    Task t = parseLineToTask(raw);
+                    if (t != null) {
+                        addedHashes[added.size()] = hash(t.serialize());
+                        added.add(t);
+                    }
+                }
+                index++;
+            }
+        }
+
+        int removed = lineCount - prefix - suffix;
+        long[] hashes = new long[prefix + added.size() + suffix];
+        System.arraycopy(lineHashes, 0, hashes, 0, prefix);
+        System.arraycopy(addedHashes, 0, hashes, prefix, added.size());
+        System.arraycopy(lineHashes, lineCount - suffix, hashes, prefix + added.size(), suffix);
+        lastLineStart = lastStart;
+        lastLineHash = lastHash;
+        remember(offset, modified, hashes, hashes.length);
+        return new Change(prefix, removed, added);
+    }
+
+    private void remember(long size, long modified, long[] hashes, int count) {
+        knownSize = size;
+        knownModified = modified;
+        lineHashes = hashes;
+        lineCount = count;
+    }
+
+    // ---------- Coordination with other processes ----------
+
+    /** Returns an object that Storages in this JVM synchronize on before locking the file. */
+    private static Object monitorFor(Path file) {
+        return MONITORS.computeIfAbsent(file.toAbsolutePath().normalize(), p -> new Object());
+    }
+
+    /** Reads the version stamp from the lock file, or 0 if there is none yet. */
+    private long readVersion() throws IOException {
+        if (!Files.exists(lockPath)) {
+            return 0;
+        }
+        try (FileChannel ch = FileChannel.open(lockPath, StandardOpenOption.READ)) {
+            return readVersion(ch);
+        }
+    }
+
+    private static long readVersion(FileChannel ch) throws IOException {
+        byte[] bytes = readBytes(ch, 0, Long.BYTES);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    /**
+     * Checks whether the file was saved by another process since this storage
+     * last read or wrote it: by its version stamp if another Butler saved it,
+     * or by its size and modification time if some other program did.
+     */
+    private boolean changedByOthers(long version) throws IOException {
+        if (knownSize < 0 || !Files.exists(dataPath)) {
+            return false; // nothing read yet, or nothing there to lose
+        }
+        return version != knownVersion
+                || Files.size(dataPath) != knownSize
+                || Files.getLastModifiedTime(dataPath).toMillis() != knownModified;
+    }
+
+    /** Reads the tasks now in the file into {@code into}, returning their line hashes. */
+    private long[] readCurrent(List<Task> into) throws IOException {
+        if (blockFormat) {
+            into.addAll(BlockFile.readAll(dataPath, this::parseLineToTask, fraction -> { }));
+        } else {
+            try (BufferedReader reader = Files.newBufferedReader(dataPath, StandardCharsets.UTF_8)) {
+                String raw;
+                while ((raw = reader.readLine()) != null) {
+                    Task t = parseLineToTask(raw);
+                    if (t != null) {
+                        into.add(t);
+                    }
+                }
+            }
+        }
+        return hashAll(into);
+    }
+
+    /**
+     * Hashes each task's line as {@link Task#serialize} writes it, not as it
+     * was read, so that a line spaced differently (e.g. {@code T | 0 | read})
+     * still matches the same task on the other side of a merge.
+     */
+    private static long[] hashAll(List<Task> tasks) {
+        long[] hashes = new long[tasks.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(tasks.get(i).serialize());
+        }
+        return hashes;
+    }
+
+    private static byte[] readBytes(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining() && ch.read(buf, position + buf.position()) >= 0) {
+            // keep reading until full or at the end of the file
+        }
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    /** 64-bit FNV-1a hash of a line, so that matching lines can be found without keeping them. */
+    static long hash(String line) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            h ^= line.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static int utf8Length(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                n++;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                n += 4;
+                i++;
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+
+    /** Fills in and commits a flight recorder event, if a recording wants it. */
+    private void commit(StorageEvent event, String operation, long bytes, int lines, boolean forced) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = dataPath.toString();
+            event.bytes = bytes;
+            event.lines = lines;
+            event.fsync = forced;
+            event.commit();
         }
     }
 
@@ -111,11 +639,12 @@ public class Storage {
      * D|done|desc|yyyy-MM-dd
      * E|done|desc|fromISO|toISO
      * </pre>
+     * each optionally followed by {@code |#tag #tag} and {@code |@doneAtISO}.
      *
      * @param raw the raw line read from storage
      * @return a Task instance or null if the line cannot be parsed
      */
-    private Task parseLineToTask(String raw) {
+    Task parseLineToTask(String raw) {
         if (raw == null) return null;
         String line = raw.trim();
         if (line.isEmpty()) return null;
@@ -127,34 +656,47 @@ public class Storage {
         boolean done = "1".equals(p[1]);
 
         Task t = null;
+        int fields = 0;
         switch (type) {
         case TYPE_TODO: {
             // T|done|desc
             t = new Todo(p[2]);
+            fields = 3;
             break;
         }
         case TYPE_DEADLINE: {
             // D|done|desc|yyyy-MM-dd
-            if (p.length >= 4) {
-                LocalDate by = LocalDate.parse(p[3]);
+            LocalDate by = p.length >= 4 ? Parser.tryParseLocalDate(p[3]) : null;
+            if (by != null) {
                 t = new Deadline(p[2], by);
             }
+            fields = 4;
             break;
         }
         case TYPE_EVENT: {
             // E|done|desc|fromISO|toISO
-            if (p.length >= 5) {
-                LocalDateTime from = LocalDateTime.parse(p[3]);
-                LocalDateTime to   = LocalDateTime.parse(p[4]);
-                assert !to.isBefore(from) : "Serialized event must not end before it starts";
+            LocalDateTime from = p.length >= 5 ? Parser.tryParseLocalDateTime(p[3]) : null;
+            LocalDateTime to   = p.length >= 5 ? Parser.tryParseLocalDateTime(p[4]) : null;
+            if (from != null && to != null && !to.isBefore(from)) {
                 t = new Event(p[2], from, to);
             }
+            fields = 5;
             break;
         }
         default:
             // unknown type -> skip
         }
-        if (t != null && done) t.mark();
+        if (t == null) return null;
+        LocalDateTime doneAt = null;
+        for (int i = fields; i < p.length; i++) {
+            // optional fields, told apart by their first character
+            if (p[i].startsWith("@")) {
+                doneAt = Parser.tryParseLocalDateTime(p[i].substring(1));
+            } else if (p[i].startsWith("#")) {
+                t.setTags(Arrays.asList(p[i].split("\\s+")));
+            }
+        }
+        if (done) t.markDoneAt(doneAt);
         return t;
     }
 }
@@ -0,0 +1,36 @@
+package Butler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event covering one {@link Storage} load or save of
+ * the whole task file.
+ */
+@Name("butler.Storage")
+@Label("Task File I/O")
+@Category("Butler")
+@Description("Reading or writing the task file")
+class StorageEvent extends Event {
+    @Label("Operation")
+    @Description("load, save, or merge (a save that merged in another process's changes)")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Lines")
+    int lines;
+
+    @Label("Forced to Disk")
+    @Description("Whether the write was fsynced before the operation returned")
+    boolean fsync;
+}
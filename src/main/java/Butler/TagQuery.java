@@ -0,0 +1,72 @@
+package Butler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A search by tags, as typed after {@code find} or {@code list}.
+ * <p>
+ * Every {@code #tag} word must match, so {@code #work #urgent} asks for tasks
+ * with both tags. Tags joined by {@code |} are alternatives, so
+ * {@code #work|#home} asks for either. A {@code -#tag} word excludes tasks
+ * with that tag. Any other words are kept as a plain keyword.
+ */
+final class TagQuery {
+    /** Groups of alternative tags; a task must have a tag from every group. */
+    final List<List<String>> required;
+    /** Tags that a task must not have. */
+    final List<String> excluded;
+    /** The words that are not tags, joined by single spaces. */
+    final String keyword;
+
+    private TagQuery(List<List<String>> required, List<String> excluded, String keyword) {
+        this.required = required;
+        this.excluded = excluded;
+        this.keyword = keyword;
+    }
+
+    /**
+     * Splits the arguments of a command into tags and keyword.
+     *
+     * @param args the text after the command word
+     * @return the query
+     */
+    static TagQuery parse(String args) {
+        List<List<String>> required = new ArrayList<>();
+        List<String> excluded = new ArrayList<>();
+        StringBuilder keyword = new StringBuilder();
+        for (String word : args.trim().split("\\s+")) {
+            if (word.startsWith("-") && Parser.isTag(word.substring(1))) {
+                excluded.add(bare(word.substring(1)));
+            } else if (isAlternatives(word)) {
+                List<String> group = new ArrayList<>();
+                for (String tag : word.split("\\|")) {
+                    group.add(bare(tag));
+                }
+                required.add(group);
+            } else if (!word.isEmpty()) {
+                keyword.append(keyword.length() == 0 ? "" : " ").append(word);
+            }
+        }
+        return new TagQuery(required, excluded, keyword.toString());
+    }
+
+    /** Returns whether the query names any tags at all. */
+    boolean hasTags() {
+        return !required.isEmpty() || !excluded.isEmpty();
+    }
+
+    private static boolean isAlternatives(String word) {
+        for (String tag : word.split("\\|", -1)) {
+            if (!Parser.isTag(tag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String bare(String tag) {
+        return tag.substring(1).toLowerCase(Locale.ROOT);
+    }
+}
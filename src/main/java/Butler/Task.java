@@ -1,11 +1,18 @@
 package Butler;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
 
 /**
  * Abstract base class for all types of tasks managed by the Butler chatbot.
  * <p>
- * A {@code Task} has a description and a completion status (done/not done).
+ * A {@code Task} has a description, a completion status (done/not done) and
+ * any number of {@code #tags}, and remembers when it was marked done.
  * Subclasses such as {@link Todo}, {@link Deadline}, and {@link Event} provide
  * specific behaviors and additional fields where applicable.
  * <p>
@@ -15,6 +22,12 @@ import java.time.format.DateTimeFormatter;
 public abstract class Task {
     protected final String description;
     protected boolean isDone;
+    /** When this task was marked done; null if it is not done or the time is not known. */
+    protected LocalDateTime doneAt;
+    /** Tags without their {@code #}, lower case, sorted and unique. */
+    protected List<String> tags = List.of();
+    /** Id given by the {@link TaskList} holding this task, for its bitmap indexes; -1 if none. */
+    int id = -1;
 
     /** Formatter for displaying plain dates (e.g., {@code Oct 15 2019}). */
     protected static final DateTimeFormatter DISPLAY_DATE =
@@ -35,14 +48,28 @@ public abstract class Task {
         this.isDone = false;
     }
 
-    /** Marks this task as done. */
+    /** Marks this task as done, now. A task that is already done keeps its completion time. */
     public void mark() {
+        if (!isDone) {
+            markDoneAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Marks this task as done at the given time, e.g. when reading it back
+     * from storage rather than completing it now.
+     *
+     * @param at when the task was done, or null if that is not known
+     */
+    public void markDoneAt(LocalDateTime at) {
         this.isDone = true;
+        this.doneAt = at;
     }
 
     /** Marks this task as not done. */
     public void unmark() {
         this.isDone = false;
+        this.doneAt = null;
     }
 
     /** Returns the icon representing the done/not-done status. */
@@ -55,6 +82,50 @@ public abstract class Task {
         return isDone;
     }
 
+    /** Returns when this task was marked done, or null if it is not done or that is not known. */
+    public LocalDateTime getDoneAt() {
+        return doneAt;
+    }
+
+    /** Returns this task's tags, without their {@code #}, sorted. */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Replaces this task's tags. Tags are compared without regard to case.
+     * Call through {@link TaskList#retag} for a task in a list, so that its
+     * tag index stays in step.
+     *
+     * @param tags the new tags, with or without their {@code #}
+     */
+    public void setTags(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            this.tags = List.of();
+            return;
+        }
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String tag : tags) {
+            String bare = tag.startsWith("#") ? tag.substring(1) : tag;
+            if (!bare.isEmpty()) {
+                sorted.add(bare.toLowerCase(Locale.ROOT));
+            }
+        }
+        this.tags = sorted.isEmpty() ? List.of() : List.copyOf(sorted);
+    }
+
+    /** Returns the description followed by the tags, as shown to the user. */
+    protected String describe() {
+        if (tags.isEmpty()) {
+            return description;
+        }
+        StringBuilder sb = new StringBuilder(description);
+        for (String tag : tags) {
+            sb.append(" #").append(tag);
+        }
+        return sb.toString();
+    }
+
     /** Returns the description of this task. */
     public String getDescription() {
         return description;
@@ -71,6 +142,25 @@ public abstract class Task {
     /** Serializes this task into a storable string format. */
     public abstract String serialize();
 
+    /**
+     * Returns the optional trailing storage fields: the tags,
+     * {@code |#<tag> #<tag>}, and the completion time, {@code |@<ISO date-time>}.
+     * Either is left out if there is none.
+     */
+    protected String optionalFields() {
+        if (tags.isEmpty() && doneAt == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tags.size(); i++) {
+            sb.append(i == 0 ? "|#" : " #").append(tags.get(i));
+        }
+        if (doneAt != null) {
+            sb.append("|@").append(doneAt);
+        }
+        return sb.toString();
+    }
+
     /**
      * Reschedules this task using a task-specific argument format.
      * <p>
@@ -83,9 +173,20 @@ public abstract class Task {
         throw new ButlerException("This task has no date/time to reschedule.");
     }
 
+    /**
+     * Returns the moment this task is due or starts, used to schedule reminders.
+     * <p>
+     * Default implementation: this task has no date/time.
+     *
+     * @return the reminder anchor time, or {@code null} if there is none
+     */
+    public LocalDateTime reminderTime() {
+        return null;
+    }
+
     /** String representation including type, status, and description. */
     @Override
     public String toString() {
-        return typeIcon() + statusIcon() + " " + description;
+        return typeIcon() + statusIcon() + " " + describe();
     }
 }
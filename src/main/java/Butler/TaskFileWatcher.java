@@ -0,0 +1,96 @@
+package Butler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches one file with a {@link WatchService} and runs an action, on a
+ * background thread, after it is created or modified.
+ * <p>
+ * A single write often raises several events, so the action runs once the
+ * events have paused for {@value #SETTLE_MILLIS} ms.
+ */
+public class TaskFileWatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(TaskFileWatcher.class.getName());
+    private static final long SETTLE_MILLIS = 50;
+
+    private final Path file;
+    private final Runnable onChange;
+    private final WatchService service;
+    private final Thread thread;
+
+    /**
+     * Creates a watcher; call {@link #start()} to begin watching.
+     *
+     * @param file     the file to watch; its directory is created if needed
+     * @param onChange what to run after the file changes
+     * @throws IOException if the directory cannot be watched
+     */
+    public TaskFileWatcher(Path file, Runnable onChange) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        Path dir = this.file.getParent();
+        Files.createDirectories(dir);
+        service = dir.getFileSystem().newWatchService();
+        dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "butler-watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching.
+     *
+     * @return this watcher
+     */
+    public TaskFileWatcher start() {
+        thread.start();
+        return this;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean changed = drain(service.take());
+                WatchKey more;
+                while ((more = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(more);
+                }
+                if (changed) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Could not take in changes to " + file, e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /** Returns whether any of the key's events concern the watched file. */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> e : key.pollEvents()) {
+            changed |= e.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(e.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    /** Stops watching. */
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+}
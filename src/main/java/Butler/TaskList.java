@@ -1,15 +1,42 @@
 package Butler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a list of tasks in the Butler chatbot.
  * <p>
  * Provides operations to add, retrieve, remove, and print tasks.
  * Wraps an {@link ArrayList} of {@link Task} objects for storage.
+ * <p>
+ * Each task in the list gets an id that stays the same while positions
+ * shift around it; ids of removed tasks are reused. For every tag the list
+ * keeps a {@link CompressedBitmap} of the ids of the tasks carrying it, so
+ * that searches by tag combine bitmaps instead of scanning the tasks. A
+ * table from id to position then finds the matching tasks in the list.
  */
 public class TaskList {
     private final ArrayList<Task> tasks;
+    private final EventSchedule schedule = new EventSchedule();
+    private final List<TaskListener> listeners = new ArrayList<>();
+
+    // ---------- Ids and tag bitmaps ----------
+    /** The next id never handed out. */
+    private int nextId;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    /** The position (0-based) of each task in the list, by id; updated wherever tasks shift. */
+    private int[] positionById = new int[16];
+    /** Ids of all tasks in the list, to search for tasks without a tag. */
+    private final CompressedBitmap allIds = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> tagIndex = new HashMap<>();
+    private static final CompressedBitmap NONE = new CompressedBitmap();
 
     /**
      * Creates an empty task list.
@@ -25,6 +52,14 @@ public class TaskList {
      */
     public TaskList(ArrayList<Task> initial) {
         this.tasks = new ArrayList<>(initial);
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        for (Task t : tasks) {
+            attach(t);
+            addToIndexes(t);
+        }
+        renumber(0);
+        commit(event, "build", tasks.size());
     }
 
     /**
@@ -35,6 +70,55 @@ public class TaskList {
     public void add(Task t) {
         assert t != null : "cannot add null task";
         tasks.add(t);
+        attach(t);
+        positionById[t.id] = tasks.size() - 1;
+        index(t);
+    }
+
+    /**
+     * Adds many tasks to the end of the list at once, in order.
+     *
+     * @param more the tasks to add
+     */
+    public void addAll(List<? extends Task> more) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        int from = tasks.size();
+        tasks.addAll(more);
+        for (Task t : more) {
+            assert t != null : "cannot add null task";
+            attach(t);
+            addToIndexes(t);
+        }
+        renumber(from);
+        commit(event, "add", more.size());
+    }
+
+    /**
+     * Replaces {@code count} tasks starting at {@code from} with other tasks,
+     * e.g. to take in changes made to the task file by another program.
+     *
+     * @param from  the index of the first task to replace (0-based)
+     * @param count how many tasks to remove
+     * @param with  the tasks to insert in their place
+     */
+    public void replace(int from, int count, List<? extends Task> with) {
+        assert from >= 0 && count >= 0 && from + count <= tasks.size() : "range out of bounds for replace";
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        List<Task> removed = tasks.subList(from, from + count);
+        for (Task t : removed) {
+            removeFromIndexes(t);
+            detach(t);
+        }
+        removed.clear();
+        tasks.addAll(from, with);
+        for (Task t : with) {
+            attach(t);
+            addToIndexes(t);
+        }
+        renumber(from);
+        commit(event, "replace", count + with.size());
     }
 
     /**
@@ -56,7 +140,117 @@ public class TaskList {
      */
     public Task remove(int idx) {
         assert idx >= 0 && idx < tasks.size() : "index out of bounds for remove";
-        return tasks.remove(idx);
+        Task removed = tasks.remove(idx);
+        unindex(removed);
+        detach(removed);
+        renumber(idx);
+        return removed;
+    }
+
+    /**
+     * Marks the task at the given index as done.
+     *
+     * @param idx the index of the task (0-based)
+     * @return the marked task
+     */
+    public Task mark(int idx) {
+        assert idx >= 0 && idx < tasks.size() : "index out of bounds for mark";
+        Task t = tasks.get(idx);
+        unindex(t);
+        t.mark();
+        index(t);
+        return t;
+    }
+
+    /**
+     * Marks the task at the given index as not done.
+     *
+     * @param idx the index of the task (0-based)
+     * @return the unmarked task
+     */
+    public Task unmark(int idx) {
+        assert idx >= 0 && idx < tasks.size() : "index out of bounds for unmark";
+        Task t = tasks.get(idx);
+        unindex(t);
+        t.unmark();
+        index(t);
+        return t;
+    }
+
+    /**
+     * Registers a listener for task additions, removals and changes.
+     * The listener is immediately told about every task already in the list.
+     *
+     * @param l the listener to register
+     */
+    public void addListener(TaskListener l) {
+        assert l != null : "listener must not be null";
+        listeners.add(l);
+        for (Task t : tasks) {
+            l.taskAdded(t);
+        }
+    }
+
+    /**
+     * Reschedules the task at the given index, keeping the event schedule
+     * and listeners in sync.
+     *
+     * @param idx      the index of the task (0-based)
+     * @param argsLine the task-specific reschedule arguments
+     * @return the rescheduled task
+     * @throws ButlerException if the task cannot be rescheduled with these arguments
+     */
+    public Task reschedule(int idx, String argsLine) throws ButlerException {
+        assert idx >= 0 && idx < tasks.size() : "index out of bounds for reschedule";
+        Task t = tasks.get(idx);
+        unindex(t);
+        try {
+            t.reschedule(argsLine);
+        } finally {
+            index(t);
+        }
+        return t;
+    }
+
+    /**
+     * Replaces the tags of the task at the given index.
+     *
+     * @param idx  the index of the task (0-based)
+     * @param tags the new tags, with or without their {@code #}
+     * @return the retagged task
+     */
+    public Task retag(int idx, Collection<String> tags) {
+        assert idx >= 0 && idx < tasks.size() : "index out of bounds for retag";
+        Task t = tasks.get(idx);
+        unindex(t);
+        untagIds(t);
+        t.setTags(tags);
+        tagIds(t);
+        index(t);
+        return t;
+    }
+
+    /**
+     * Returns the scheduled events that overlap the given task.
+     * Tasks other than events never conflict.
+     *
+     * @param t the task to check
+     * @return overlapping events ordered by start time
+     */
+    public List<Event> conflictsWith(Task t) {
+        if (!(t instanceof Event)) {
+            return List.of();
+        }
+        return schedule.overlapping((Event) t);
+    }
+
+    /**
+     * Returns every pair of overlapping events in this list.
+     *
+     * @return overlapping pairs, each ordered by start time
+     */
+    public List<Event[]> allConflicts() {
+        return schedule.allConflicts();
     }
 
     /**
@@ -104,6 +298,201 @@ public class TaskList {
         return matches;
     }
 
+    // ---------- Tags ----------
+
+    /**
+     * Returns the ids of the tasks that match the tags of a query; its
+     * keyword is not checked. Groups of alternatives are joined with OR and
+     * then with AND, smallest first, and excluded tags taken away with ANDNOT.
+     * The result may be one of the list's own bitmaps and must not be changed.
+     *
+     * @param q the query
+     * @return the ids of the matching tasks
+     */
+    CompressedBitmap select(TagQuery q) {
+        List<CompressedBitmap> groups = new ArrayList<>(q.required.size());
+        for (List<String> alternatives : q.required) {
+            CompressedBitmap any = NONE;
+            for (String tag : alternatives) {
+                CompressedBitmap ids = tagIndex.getOrDefault(tag, NONE);
+                any = any == NONE ? ids : CompressedBitmap.or(any, ids);
+            }
+            groups.add(any);
+        }
+        groups.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap result = groups.isEmpty() ? allIds : groups.get(0);
+        for (int i = 1; i < groups.size() && !result.isEmpty(); i++) {
+            result = CompressedBitmap.and(result, groups.get(i));
+        }
+        for (String tag : q.excluded) {
+            CompressedBitmap ids = tagIndex.get(tag);
+            if (ids != null && !result.isEmpty()) {
+                result = CompressedBitmap.andNot(result, ids);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tasks that match a query: its tags through the tag
+     * bitmaps, then its keyword, if any, as a substring of the description.
+     *
+     * @param q the query
+     * @return the matching tasks, in list order
+     */
+    public List<Task> findByTags(TagQuery q) {
+        List<Task> matches = new ArrayList<>();
+        for (int i : positionsOf(select(q))) {
+            Task t = tasks.get(i);
+            if (q.keyword.isEmpty() || t.getDescription().contains(q.keyword)) {
+                matches.add(t);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the positions (0-based) of the tasks with the given ids, in
+     * list order. Only the selected ids are looked at, not the whole list.
+     *
+     * @param selected ids of tasks in the list, as returned by {@link #select}
+     * @return their positions, ascending
+     */
+    int[] positionsOf(CompressedBitmap selected) {
+        int[] positions = new int[selected.cardinality()];
+        int[] n = new int[1];
+        selected.forEach(id -> positions[n[0]++] = positionById[id]);
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Returns the position (0-based) of a task in the list, to number tasks
+     * shown in another order.
+     *
+     * @param t a task in this list
+     * @return its position
+     */
+    int positionOf(Task t) {
+        assert t.id >= 0 && t.id < nextId && tasks.get(positionById[t.id]) == t : "task must be in this list";
+        return positionById[t.id];
+    }
+
+    /**
+     * Returns every tag in use with the number of tasks carrying it, most
+     * used first.
+     *
+     * @return tag counts, without the tags' {@code #}
+     */
+    public Map<String, Integer> tagCounts() {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>(tagIndex.size());
+        for (Map.Entry<String, CompressedBitmap> e : tagIndex.entrySet()) {
+            counts.add(Map.entry(e.getKey(), e.getValue().cardinality()));
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> e : counts) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+
+    /** Gives a task entering the list an id and adds it to the tag bitmaps. */
+    private void attach(Task t) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextId++;
+            if (id == positionById.length) {
+                positionById = Arrays.copyOf(positionById, id * 2);
+            }
+        }
+        t.id = id;
+        allIds.add(id);
+        tagIds(t);
+    }
+
+    /** Takes a task leaving the list out of the tag bitmaps and frees its id. */
+    private void detach(Task t) {
+        untagIds(t);
+        allIds.remove(t.id);
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = t.id;
+        t.id = -1;
+    }
+
+    private void tagIds(Task t) {
+        for (String tag : t.getTags()) {
+            tagIndex.computeIfAbsent(tag, k -> new CompressedBitmap()).add(t.id);
+        }
+    }
+
+    /** Records the positions of the tasks from {@code from} on, after they shifted or arrived. */
+    private void renumber(int from) {
+        for (int i = from; i < tasks.size(); i++) {
+            positionById[tasks.get(i).id] = i;
+        }
+    }
+
+    private void untagIds(Task t) {
+        for (String tag : t.getTags()) {
+            CompressedBitmap ids = tagIndex.get(tag);
+            ids.remove(t.id);
+            if (ids.isEmpty()) {
+                tagIndex.remove(tag);
+            }
+        }
+    }
+
+    // ---------- Index maintenance ----------
+
+    private void index(Task t) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        addToIndexes(t);
+        commit(event, "add", 1);
+    }
+
+    private void unindex(Task t) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        removeFromIndexes(t);
+        commit(event, "remove", 1);
+    }
+
+    private void addToIndexes(Task t) {
+        if (t instanceof Event) {
+            schedule.add((Event) t);
+        }
+        for (TaskListener l : listeners) {
+            l.taskAdded(t);
+        }
+    }
+
+    private void removeFromIndexes(Task t) {
+        if (t instanceof Event) {
+            schedule.remove((Event) t);
+        }
+        for (TaskListener l : listeners) {
+            l.taskRemoved(t);
+        }
+    }
+
+    /** Fills in and commits a flight recorder event, if a recording wants it. */
+    private void commit(IndexEvent event, String operation, int count) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.tasks = count;
+            event.listeners = listeners.size();
+            event.scheduled = schedule.size();
+            event.commit();
+        }
+    }
+
     /**
      * Displays the full list of tasks in the user interface.
      * <p>
@@ -0,0 +1,25 @@
+package Butler;
+
+/**
+ * Receives notifications when tasks enter or leave a {@link TaskList}.
+ * <p>
+ * In-place updates such as marking or rescheduling are reported as a removal
+ * before the change followed by an addition after it, so listeners that index
+ * tasks by a mutable property can drop the stale entry and insert the new one.
+ */
+public interface TaskListener {
+
+    /**
+     * Called after a task has been added to the list, or after it has changed.
+     *
+     * @param t the task
+     */
+    void taskAdded(Task t);
+
+    /**
+     * Called after a task has been removed from the list, or before it changes.
+     *
+     * @param t the task
+     */
+    void taskRemoved(Task t);
+}
@@ -0,0 +1,264 @@
+package Butler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges two sets of changes made to the same task file, for when another
+ * process saved the file after this one last read it.
+ * <p>
+ * This is a three-way merge over the tasks both sides started from (the
+ * "base"), our tasks and the tasks now on disk ("theirs"). Each side is
+ * diffed against the base by line hash, so every task on each side is known
+ * to be a base task left alone, a base task changed in place (a line
+ * replaced where it stood), or a task added. Changes are then combined task
+ * by task:
+ * <ul>
+ * <li>a task changed on one side only takes that change;</li>
+ * <li>a task changed the same way on both sides is kept once;</li>
+ * <li>a task changed differently on both sides keeps our version, and a task
+ *     deleted on one side but changed on the other keeps the change; both
+ *     are reported as conflicts;</li>
+ * <li>a task deleted on either side and untouched on the other is gone;</li>
+ * <li>tasks added on either side are all kept.</li>
+ * </ul>
+ */
+final class TaskMerge {
+    /** Beyond this many differing lines, a side is aligned greedily instead of with a minimal diff. */
+    private static final int MAX_EDITS = 1024;
+
+    /** The merged tasks, and the ones whose other version was dropped. */
+    static final class Result {
+        final List<Task> tasks;
+        final List<Task> conflicts;
+
+        Result(List<Task> tasks, List<Task> conflicts) {
+            this.tasks = tasks;
+            this.conflicts = conflicts;
+        }
+    }
+
+    private TaskMerge() {} // prevent instantiation
+
+    /**
+     * Merges our changes into theirs.
+     * <p>
+     * Their order is kept. Each task we added goes right after the nearest
+     * task before it in our list that is still in theirs.
+     *
+     * @param base        line hashes of the tasks both sides started from
+     * @param baseCount   how many entries of {@code base} are in use
+     * @param ours        our tasks
+     * @param ourHashes   the line hash of each of our tasks
+     * @param theirs      the tasks now on disk
+     * @param theirHashes the line hash of each of their tasks
+     * @return the merged tasks and the conflicts
+     */
+    static Result merge(long[] base, int baseCount, List<Task> ours, long[] ourHashes,
+            List<Task> theirs, long[] theirHashes) {
+        assert ourHashes.length >= ours.size() && theirHashes.length >= theirs.size() : "one hash per task";
+
+        // For each task on a side, the base task it came from (-1: added); for each base task, where it went.
+        int[] ourOrigin = align(base, baseCount, ourHashes, ours.size());
+        int[] theirOrigin = align(base, baseCount, theirHashes, theirs.size());
+        int[] ourOf = inverse(ourOrigin, baseCount);
+        int[] theirOf = inverse(theirOrigin, baseCount);
+
+        List<Task> conflicts = new ArrayList<>();
+        // What becomes of each base task: the surviving task, or null if it is gone.
+        Task[] resolved = new Task[baseCount];
+        for (int b = 0; b < baseCount; b++) {
+            int o = ourOf[b];
+            int t = theirOf[b];
+            boolean ourChange = o >= 0 && ourHashes[o] != base[b];
+            boolean theirChange = t >= 0 && theirHashes[t] != base[b];
+            if (o < 0 && t < 0) {
+                continue;
+            } else if (o < 0 || t < 0) {
+                // Deleted on one side: gone, unless the other side changed it.
+                if (ourChange || theirChange) {
+                    resolved[b] = o >= 0 ? ours.get(o) : theirs.get(t);
+                    conflicts.add(resolved[b]);
+                }
+            } else if (!ourChange) {
+                resolved[b] = theirs.get(t);
+            } else {
+                resolved[b] = ours.get(o);
+                if (theirChange && ourHashes[o] != theirHashes[t]) {
+                    conflicts.add(resolved[b]);
+                }
+            }
+        }
+
+        // Our additions, and base tasks only we still have, each placed after the last of our tasks
+        // seen that is in theirs (-1: the start).
+        Map<Integer, List<Task>> insertAfter = new HashMap<>();
+        int anchor = -1;
+        for (int i = 0; i < ours.size(); i++) {
+            int b = ourOrigin[i];
+            if (b >= 0 && theirOf[b] >= 0) {
+                anchor = theirOf[b];
+            } else if (b < 0 || resolved[b] != null) {
+                insertAfter.computeIfAbsent(anchor, a -> new ArrayList<>()).add(ours.get(i));
+            }
+        }
+
+        List<Task> merged = new ArrayList<>(theirs.size() + ours.size());
+        merged.addAll(insertAfter.getOrDefault(-1, List.of()));
+        for (int j = 0; j < theirs.size(); j++) {
+            int b = theirOrigin[j];
+            Task t = b < 0 ? theirs.get(j) : resolved[b];
+            if (t != null) {
+                merged.add(t);
+            }
+            merged.addAll(insertAfter.getOrDefault(j, List.of()));
+        }
+        return new Result(merged, conflicts);
+    }
+
+    /**
+     * Diffs one side against the base and returns, for each of the side's
+     * tasks, the index of the base task it came from, or -1 if it was added.
+     * Within each run of differing lines, base and side lines are paired in
+     * order: those are tasks changed in place.
+     */
+    static int[] align(long[] base, int baseCount, long[] side, int sideCount) {
+        int[] origin = new int[sideCount];
+        Arrays.fill(origin, -1);
+        int prefix = 0;
+        while (prefix < baseCount && prefix < sideCount && base[prefix] == side[prefix]) {
+            origin[prefix] = prefix;
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < baseCount - prefix && suffix < sideCount - prefix
+                && base[baseCount - 1 - suffix] == side[sideCount - 1 - suffix]) {
+            origin[sideCount - 1 - suffix] = baseCount - 1 - suffix;
+            suffix++;
+        }
+
+        int baseEnd = baseCount - suffix;
+        int sideEnd = sideCount - suffix;
+        int[] matched = new int[sideEnd - prefix]; // base index matched to each middle side line, or -1
+        if (!diff(base, prefix, baseEnd, side, prefix, sideEnd, matched)) {
+            greedy(base, prefix, baseEnd, side, prefix, sideEnd, matched);
+        }
+
+        // Walk the middle, pairing the unmatched lines between consecutive matches in order.
+        int b = prefix;
+        int hunkStart = prefix;
+        for (int s = prefix; s <= sideEnd; s++) {
+            int next = s < sideEnd ? matched[s - prefix] : -1;
+            if (s < sideEnd && next < 0) {
+                continue;
+            }
+            int hunkBaseEnd = s < sideEnd ? next : baseEnd;
+            for (int k = 0; hunkStart + k < s && b + k < hunkBaseEnd; k++) {
+                origin[hunkStart + k] = b + k;
+            }
+            if (s < sideEnd) {
+                origin[s] = next;
+                b = next + 1;
+            }
+            hunkStart = s + 1;
+        }
+        return origin;
+    }
+
+    /**
+     * Finds a longest common subsequence of the two ranges with Myers' diff,
+     * filling {@code matched}. Returns false if the ranges differ in more
+     * than {@value #MAX_EDITS} lines.
+     */
+    private static boolean diff(long[] a, int aStart, int aEnd, long[] b, int bStart, int bEnd, int[] matched) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        Arrays.fill(matched, -1);
+        int max = Math.min(n + m, MAX_EDITS);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            trace.add(Arrays.copyOfRange(v, offset - d - 1, offset + d + 2));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aStart + x] == b[bStart + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    backtrack(trace, d, n, m, a, aStart, b, bStart, matched);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Follows the saved diagonals back from the end, recording the matched lines. */
+    private static void backtrack(List<int[]> trace, int d, int n, int m,
+            long[] a, int aStart, long[] b, int bStart, int[] matched) {
+        int x = n;
+        int y = m;
+        for (; d > 0; d--) {
+            int[] v = trace.get(d); // the diagonals as they were before step d, from k = -d - 1
+            int k = x - y;
+            int prevK = k == -d || (k != d && v[k - 1 + d + 1] < v[k + 1 + d + 1]) ? k + 1 : k - 1;
+            int prevX = v[prevK + d + 1];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x--;
+                y--;
+                matched[y] = aStart + x;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            matched[y] = aStart + x;
+        }
+    }
+
+    /** Matches lines in order, each side line to the next equal base line: linear, but not minimal. */
+    private static void greedy(long[] a, int aStart, int aEnd, long[] b, int bStart, int bEnd, int[] matched) {
+        Map<Long, ArrayDeque<Integer>> positions = new HashMap<>();
+        for (int i = aStart; i < aEnd; i++) {
+            positions.computeIfAbsent(a[i], h -> new ArrayDeque<>()).add(i);
+        }
+        int last = aStart - 1;
+        for (int j = bStart; j < bEnd; j++) {
+            ArrayDeque<Integer> at = positions.get(b[j]);
+            while (at != null && !at.isEmpty() && at.peek() <= last) {
+                at.poll();
+            }
+            if (at != null && !at.isEmpty()) {
+                last = at.poll();
+                matched[j - bStart] = last;
+            } else {
+                matched[j - bStart] = -1;
+            }
+        }
+    }
+
+    /** Turns side-to-base indexes into base-to-side indexes, -1 where a base task is gone. */
+    private static int[] inverse(int[] origin, int baseCount) {
+        int[] of = new int[baseCount];
+        Arrays.fill(of, -1);
+        for (int j = 0; j < origin.length; j++) {
+            if (origin[j] >= 0) {
+                of[origin[j]] = j;
+            }
+        }
+        return of;
+    }
+}
@@ -0,0 +1,184 @@
+package Butler;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keeps the tasks of a {@link TaskList} sorted by one key, so that showing a
+ * sorted list costs only the rendering.
+ * <p>
+ * Each task's sort key is worked out once, when the task enters the order or
+ * changes, and kept as a {@code long} next to it: the epoch second of its
+ * date, its type or its status, or the first characters of its description
+ * (with the full lowercased description to break ties). Comparisons never go
+ * back to the task. Ties keep the order in which tasks entered the list: a
+ * task changed in place (marked, rescheduled, retagged) keeps its sequence
+ * number, so it does not move behind the tasks it ties with.
+ * <p>
+ * As a {@link TaskListener} the order only notes changes: a removed task's
+ * entry is marked dead, and an added one is put aside. The next time the
+ * order is read, the put-aside entries are sorted and merged into the sorted
+ * ones, dropping the dead, in one linear pass. The first read sorts every
+ * task at once, in parallel for large lists.
+ */
+final class TaskOrder implements TaskListener {
+    /** What the tasks are sorted by. */
+    enum Key { DATE, TYPE, STATUS, DESCRIPTION }
+
+    /** Below this many entries, sorting in parallel is not worth it. */
+    private static final int PARALLEL_MIN = 1 << 13;
+    /** How many changes may wait before they are merged, beyond one per task. */
+    private static final int MAX_WAITING = 1024;
+    /** Characters of the description packed into its key, 16 bits each. */
+    private static final int KEY_CHARS = 3;
+
+    private static final class Entry {
+        final Task task;
+        final long key;
+        /** The lowercased description when sorting by description, else null. */
+        final String text;
+        final long seq;
+        boolean live = true;
+
+        Entry(Task task, long key, String text, long seq) {
+            this.task = task;
+            this.key = key;
+            this.text = text;
+            this.seq = seq;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int c = Long.compare(a.key, b.key);
+        if (c == 0 && a.text != null) {
+            c = a.text.compareTo(b.text);
+        }
+        return c != 0 ? c : Long.compare(a.seq, b.seq);
+    };
+
+    private final Key key;
+    private Entry[] sorted = new Entry[0];
+    /** Entries added since the last merge, in no particular order. */
+    private final List<Entry> added = new ArrayList<>();
+    /** Each task's current entry by task id, or its last one, marked dead, until the id is reused. */
+    private Entry[] byId = new Entry[16];
+    private int live;
+    private int dead;
+    private long nextSeq;
+
+    TaskOrder(Key key) {
+        this.key = key;
+    }
+
+    @Override
+    public void taskAdded(Task t) {
+        assert t.id >= 0 : "task must be in a list";
+        if (t.id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(t.id + 1, byId.length * 2));
+        }
+        // A task changed in place comes back under the same id: keep its sequence number.
+        Entry old = byId[t.id];
+        long seq = old != null && old.task == t ? old.seq : nextSeq++;
+        Entry e = new Entry(t, keyOf(t), key == Key.DESCRIPTION ? lower(t) : null, seq);
+        byId[t.id] = e;
+        added.add(e);
+        live++;
+        if (added.size() + dead > live + MAX_WAITING) {
+            merge();
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task t) {
+        Entry e = byId[t.id];
+        assert e != null && e.task == t && e.live : "removed task was never added";
+        e.live = false;
+        live--;
+        dead++;
+    }
+
+    /** Returns the number of tasks in the order. */
+    int size() {
+        return live;
+    }
+
+    /**
+     * Returns the task at the given position in sorted order.
+     *
+     * @param i the position (0-based)
+     * @return the task
+     */
+    Task get(int i) {
+        merge();
+        assert i >= 0 && i < sorted.length : "index out of bounds for sorted order";
+        return sorted[i].task;
+    }
+
+    /** Merges the changes noted since the last read into the sorted entries. */
+    void merge() {
+        if (added.isEmpty() && dead == 0) {
+            return;
+        }
+        Entry[] more = new Entry[added.size()];
+        int m = 0;
+        for (Entry e : added) {
+            if (e.live) {
+                more[m++] = e;
+            }
+        }
+        if (m >= PARALLEL_MIN) {
+            Arrays.parallelSort(more, 0, m, ORDER);
+        } else {
+            Arrays.sort(more, 0, m, ORDER);
+        }
+        Entry[] merged = new Entry[live];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < sorted.length || j < m) {
+            if (i < sorted.length && !sorted[i].live) {
+                i++;
+            } else if (j == m || (i < sorted.length && ORDER.compare(sorted[i], more[j]) <= 0)) {
+                merged[k++] = sorted[i++];
+            } else {
+                merged[k++] = more[j++];
+            }
+        }
+        assert k == live : "merged order lost or duplicated tasks";
+        sorted = merged;
+        added.clear();
+        dead = 0;
+    }
+
+    private long keyOf(Task t) {
+        switch (key) {
+        case DATE:
+            if (t instanceof Deadline) {
+                return ((Deadline) t).getBy().toEpochDay() * 86_400L;
+            }
+            if (t instanceof Event) {
+                return ((Event) t).getFrom().toEpochSecond(ZoneOffset.UTC);
+            }
+            return Long.MAX_VALUE; // todos have no date and come last
+        case TYPE:
+            return t instanceof Todo ? 0 : t instanceof Deadline ? 1 : 2;
+        case STATUS:
+            return t.isDone() ? 1 : 0;
+        default:
+            String s = lower(t);
+            long packed = 0;
+            for (int i = 0; i < KEY_CHARS; i++) {
+                packed = packed << 16 | (i < s.length() ? s.charAt(i) : 0);
+            }
+            return packed;
+        }
+    }
+
+    private static String lower(Task t) {
+        return t.getDescription().toLowerCase(Locale.ROOT);
+    }
+}
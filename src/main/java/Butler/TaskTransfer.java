@@ -0,0 +1,676 @@
+package Butler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Streams tasks between a {@link TaskList} and CSV or iCalendar files.
+ * <p>
+ * Both directions work record by record, so memory use does not grow with
+ * the size of the file: imports hand valid tasks to their sink in chunks of
+ * {@value #CHUNK}, and exports write each task as they go. Imported records
+ * are checked with the same rules as typed commands ({@link Checks},
+ * {@link Parser}); records that fail are skipped and reported with their
+ * line numbers.
+ * <p>
+ * CSV files have the columns {@code type,done,description,start,end,completed,tags},
+ * with an optional header row. {@code type} is {@code T}, {@code D} or {@code E};
+ * {@code start} is a deadline's date or an event's start, {@code end} an
+ * event's end, and the optional {@code completed} when a done task was done,
+ * in any format {@link Parser} accepts, and the optional {@code tags} are
+ * {@code #words} separated by spaces. iCalendar files map {@code VTODO}s
+ * without {@code DUE} to todos, those with {@code DUE} to deadlines, and
+ * {@code VEVENT}s to events; completion times travel in {@code COMPLETED}
+ * and tags in {@code CATEGORIES}.
+ */
+public class TaskTransfer {
+    private TaskTransfer() {} // prevent instantiation
+
+    /** The file formats, chosen by file extension. */
+    enum Format { CSV, ICS }
+
+    /** How many valid tasks are collected before they are handed to the sink. */
+    static final int CHUNK = 8192;
+    /** How many skipped records are described in the result. */
+    private static final int MAX_REPORTED_ERRORS = 5;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String CSV_HEADER = "type,done,description,start,end,completed,tags";
+    /** iCalendar lines longer than this many bytes are folded. */
+    private static final int ICS_LINE_OCTETS = 75;
+    private static final DateTimeFormatter ICS_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter ICS_DATETIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    /** What an import did: how many tasks it added and which records it skipped. */
+    static final class ImportResult {
+        int imported;
+        int skipped;
+        final List<String> errors = new ArrayList<>();
+
+        private void skip(long line, String message) {
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + message);
+            }
+        }
+
+        /** Describes the result for the user. */
+        String describe(Path file) {
+            StringBuilder sb = new StringBuilder("Imported ").append(imported).append(" tasks from ")
+                    .append(file.getFileName()).append('.');
+            if (skipped > 0) {
+                sb.append("\nSkipped ").append(skipped).append(" invalid records:");
+                for (String e : errors) {
+                    sb.append("\n   ").append(e);
+                }
+                if (skipped > errors.size()) {
+                    sb.append("\n   ...");
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Picks the format from the file name.
+     *
+     * @param file the file to read or write
+     * @return the format
+     * @throws ButlerException if the extension is neither {@code .csv} nor {@code .ics}
+     */
+    static Format formatOf(Path file) throws ButlerException {
+        String name = file.getFileName() == null ? "" : file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".ics")) {
+            return Format.ICS;
+        }
+        throw new ButlerException("I can only import and export .csv or .ics files.");
+    }
+
+    // ---------- Import ----------
+
+    /**
+     * Reads tasks from a CSV or iCalendar file.
+     *
+     * @param file the file to read
+     * @param sink receives the valid tasks, a chunk at a time, in file order;
+     *             the list is reused after the call returns
+     * @return how many tasks were imported and which records were skipped
+     * @throws ButlerException if the format is unknown or the file cannot be read;
+     *                         chunks already handed to the sink stay there
+     */
+    static ImportResult importTasks(Path file, Consumer<List<Task>> sink) throws ButlerException {
+        Format format = formatOf(file);
+        ImportResult result = new ImportResult();
+        List<Task> chunk = new ArrayList<>(CHUNK);
+        Consumer<Task> collect = t -> {
+            chunk.add(t);
+            result.imported++;
+            if (chunk.size() == CHUNK) {
+                sink.accept(chunk);
+                chunk.clear();
+            }
+        };
+        try (BufferedReader in = new BufferedReader(Files.newBufferedReader(file, StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            if (format == Format.CSV) {
+                readCsv(in, collect, result);
+            } else {
+                readIcs(in, collect, result);
+            }
+        } catch (NoSuchFileException e) {
+            throw new ButlerException("I can't find the file " + file + ".");
+        } catch (IOException e) {
+            throw new ButlerException("I couldn't read " + file + ": " + e.getMessage());
+        } finally {
+            if (!chunk.isEmpty()) {
+                sink.accept(chunk);
+            }
+        }
+        return result;
+    }
+
+    private static void readCsv(BufferedReader in, Consumer<Task> out, ImportResult result) throws IOException {
+        CsvReader csv = new CsvReader(in);
+        List<String> fields = new ArrayList<>();
+        boolean first = true;
+        while (csv.next(fields)) {
+            if (first && !fields.isEmpty() && fields.get(0).trim().equalsIgnoreCase("type")) {
+                first = false;
+                continue; // header row
+            }
+            first = false;
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue; // blank line
+            }
+            try {
+                out.accept(csvTask(fields));
+            } catch (ButlerException e) {
+                result.skip(csv.recordLine(), e.getMessage());
+            }
+        }
+    }
+
+    private static Task csvTask(List<String> f) throws ButlerException {
+        String type = field(f, 0).trim().toUpperCase(Locale.ROOT);
+        String done = field(f, 1).trim();
+        String desc = checkDescription(field(f, 2).trim());
+        String start = field(f, 3).trim();
+        String end = field(f, 4).trim();
+        String completed = field(f, 5).trim();
+        String tags = field(f, 6).trim();
+
+        Task t;
+        switch (type) {
+        case "T":
+            t = new Todo(desc);
+            break;
+        case "D":
+            Checks.ensureNonEmpty(start, "A deadline needs a date (yyyy-MM-dd).");
+            t = new Deadline(desc, Parser.parseLocalDate(start));
+            break;
+        case "E":
+            Checks.ensureNonEmpty(start, "An event needs a start and an end.");
+            Checks.ensureNonEmpty(end, "An event needs a start and an end.");
+            t = newEvent(desc, Parser.parseLocalDateTime(start), Parser.parseLocalDateTime(end));
+            break;
+        default:
+            throw new ButlerException("The type must be T, D or E.");
+        }
+        if (isTrue(done)) {
+            t.markDoneAt(completed.isEmpty() ? null : Parser.parseLocalDateTime(completed));
+        } else if (!done.isEmpty() && !done.equals("0") && !done.equalsIgnoreCase("false")) {
+            throw new ButlerException("The done column must be 1, 0, true or false.");
+        }
+        List<String> named = new ArrayList<>();
+        if (!Parser.extractTags(tags, named).isEmpty()) {
+            throw new ButlerException("The tags column must hold #words separated by spaces.");
+        }
+        t.setTags(named);
+        return t;
+    }
+
+    private static String field(List<String> fields, int i) {
+        return i < fields.size() ? fields.get(i) : "";
+    }
+
+    private static boolean isTrue(String s) {
+        return s.equals("1") || s.equalsIgnoreCase("true");
+    }
+
+    /** Applies the rules of the todo, deadline and event commands, plus what the task file can store. */
+    private static String checkDescription(String desc) throws ButlerException {
+        Checks.ensureNonEmpty(desc, "The description cannot be empty.");
+        if (desc.indexOf('|') >= 0 || desc.indexOf('\n') >= 0 || desc.indexOf('\r') >= 0) {
+            throw new ButlerException("The description cannot contain '|' or line breaks.");
+        }
+        return desc;
+    }
+
+    private static Event newEvent(String desc, LocalDateTime from, LocalDateTime to) throws ButlerException {
+        if (to.isBefore(from)) {
+            throw new ButlerException("An event cannot end before it starts.");
+        }
+        return new Event(desc, from, to);
+    }
+
+    /**
+     * Splits RFC 4180 CSV into records. Quoted fields may hold commas, quotes
+     * (doubled) and line breaks.
+     */
+    static final class CsvReader {
+        private final BufferedReader in;
+        private final StringBuilder field = new StringBuilder();
+        private long line = 1;
+        private long recordLine;
+        private boolean eof;
+
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        /** Returns the line the last record started on. */
+        long recordLine() {
+            return recordLine;
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @param fields cleared, then filled with the record's fields
+         * @return false at the end of the input
+         */
+        boolean next(List<String> fields) throws IOException {
+            fields.clear();
+            if (eof) {
+                return false;
+            }
+            recordLine = line;
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        int d = in.read();
+                        if (d == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (d != -1) {
+                                in.reset();
+                            }
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return true;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            eof = true;
+            if (!any) {
+                return false;
+            }
+            fields.add(field.toString());
+            return true;
+        }
+    }
+
+    private static void readIcs(BufferedReader in, Consumer<Task> out, ImportResult result) throws IOException {
+        IcsReader ics = new IcsReader(in);
+        String component = null; // VTODO or VEVENT being read
+        int nested = 0;          // depth of components inside it, such as VALARM
+        long startLine = 0;
+        String summary = null;
+        String due = null;
+        String dtStart = null;
+        String dtEnd = null;
+        String completed = null;
+        List<String> categories = new ArrayList<>();
+        boolean done = false;
+        String line;
+        while ((line = ics.next()) != null) {
+            int colon = valueStart(line);
+            if (colon < 0) {
+                continue;
+            }
+            String params = line.substring(0, colon);
+            String value = line.substring(colon + 1);
+            int semi = params.indexOf(';');
+            String name = (semi < 0 ? params : params.substring(0, semi)).toUpperCase(Locale.ROOT);
+
+            if (name.equals("BEGIN")) {
+                String what = value.trim().toUpperCase(Locale.ROOT);
+                if (component != null) {
+                    nested++;
+                } else if (what.equals("VTODO") || what.equals("VEVENT")) {
+                    component = what;
+                    startLine = ics.lineNumber();
+                    summary = due = dtStart = dtEnd = completed = null;
+                    categories.clear();
+                    done = false;
+                }
+            } else if (name.equals("END") && component != null) {
+                if (nested > 0) {
+                    nested--;
+                    continue;
+                }
+                try {
+                    Task t = icsTask(component, summary, due, dtStart, dtEnd, done, completed);
+                    t.setTags(categories);
+                    out.accept(t);
+                } catch (ButlerException e) {
+                    result.skip(startLine, e.getMessage());
+                }
+                component = null;
+            } else if (component != null && nested == 0) {
+                switch (name) {
+                case "SUMMARY":
+                    summary = unescapeText(value);
+                    break;
+                case "DUE":
+                    due = value.trim();
+                    break;
+                case "DTSTART":
+                    dtStart = value.trim();
+                    break;
+                case "DTEND":
+                    dtEnd = value.trim();
+                    break;
+                case "STATUS":
+                    done |= value.trim().equalsIgnoreCase("COMPLETED");
+                    break;
+                case "COMPLETED":
+                case "X-BUTLER-COMPLETED":
+                    done = true;
+                    completed = value.trim();
+                    break;
+                case "CATEGORIES":
+                    for (String category : value.split("(?<!\\\\),")) {
+                        // Categories may hold spaces and other characters that a #tag cannot.
+                        String tag = "#" + unescapeText(category).trim().replace(' ', '-');
+                        if (Parser.isTag(tag)) {
+                            categories.add(tag);
+                        }
+                    }
+                    break;
+                case "X-BUTLER-DONE":
+                    done |= value.trim().equalsIgnoreCase("TRUE");
+                    break;
+                default:
+                    // other properties carry nothing a task can hold
+                }
+            }
+        }
+    }
+
+    private static Task icsTask(String component, String summary, String due, String dtStart, String dtEnd,
+            boolean done, String completed) throws ButlerException {
+        String desc = checkDescription(summary == null ? "" : summary.trim());
+        Task t;
+        if (component.equals("VTODO")) {
+            t = due == null ? new Todo(desc) : new Deadline(desc, icsDateTime(due).toLocalDate());
+        } else {
+            if (dtStart == null) {
+                throw new ButlerException("An event needs a DTSTART.");
+            }
+            LocalDateTime from = icsDateTime(dtStart);
+            t = newEvent(desc, from, dtEnd == null ? from : icsDateTime(dtEnd));
+        }
+        if (done) {
+            t.markDoneAt(completed == null ? null : icsDateTime(completed));
+        }
+        return t;
+    }
+
+    /**
+     * Converts an iCalendar {@code DATE} or {@code DATE-TIME} to the ISO form
+     * {@link Parser} reads. UTC times ({@code Z}) become local time.
+     */
+    private static LocalDateTime icsDateTime(String v) throws ButlerException {
+        boolean utc = v.endsWith("Z");
+        String s = utc ? v.substring(0, v.length() - 1) : v;
+        if (s.length() < 8) {
+            throw new ButlerException("'" + v + "' is not an iCalendar date.");
+        }
+        String date = s.substring(0, 4) + "-" + s.substring(4, 6) + "-" + s.substring(6, 8);
+        if (s.length() == 8) {
+            return Parser.parseLocalDate(date).atStartOfDay();
+        }
+        if (s.length() != 15 || s.charAt(8) != 'T') {
+            throw new ButlerException("'" + v + "' is not an iCalendar date-time.");
+        }
+        LocalDateTime t = Parser.parseLocalDateTime(date + "T" + s.substring(9, 11) + ":" + s.substring(11, 13)
+                + ":" + s.substring(13, 15));
+        return utc ? t.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : t;
+    }
+
+    /** Returns the index of the colon ending the property name and parameters, or -1. */
+    private static int valueStart(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String unescapeText(String v) {
+        if (v.indexOf('\\') < 0) {
+            return v;
+        }
+        StringBuilder sb = new StringBuilder(v.length());
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '\\' && i + 1 < v.length()) {
+                char n = v.charAt(++i);
+                sb.append(n == 'n' || n == 'N' ? '\n' : n);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Reads iCalendar content lines, joining folded continuation lines. */
+    static final class IcsReader {
+        private final BufferedReader in;
+        private String lookahead;
+        private long line;
+        private long lookaheadLine;
+
+        IcsReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        /** Returns the physical line the last content line started on. */
+        long lineNumber() {
+            return line;
+        }
+
+        /** Returns the next unfolded content line, or null at the end. */
+        String next() throws IOException {
+            String current = lookahead != null ? lookahead : in.readLine();
+            line = lookahead != null ? lookaheadLine : line + 1;
+            lookahead = null;
+            if (current == null) {
+                return null;
+            }
+            long physical = line;
+            StringBuilder sb = null;
+            String nextLine;
+            while ((nextLine = in.readLine()) != null) {
+                physical++;
+                if (!nextLine.isEmpty() && (nextLine.charAt(0) == ' ' || nextLine.charAt(0) == '\t')) {
+                    if (sb == null) {
+                        sb = new StringBuilder(current);
+                    }
+                    sb.append(nextLine, 1, nextLine.length());
+                } else {
+                    lookahead = nextLine;
+                    lookaheadLine = physical;
+                    break;
+                }
+            }
+            return sb == null ? current : sb.toString();
+        }
+    }
+
+    // ---------- Export ----------
+
+    /**
+     * Writes every task to a CSV or iCalendar file, replacing it.
+     *
+     * @param tasks the tasks to write
+     * @param file  the file to write
+     * @return the number of tasks written
+     * @throws ButlerException if the format is unknown or the file cannot be written
+     */
+    static int exportTasks(TaskList tasks, Path file) throws ButlerException {
+        Format format = formatOf(file);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                    BUFFER_SIZE)) {
+                if (format == Format.CSV) {
+                    writeCsv(tasks, out);
+                } else {
+                    writeIcs(tasks, out);
+                }
+            }
+        } catch (IOException e) {
+            throw new ButlerException("I couldn't write " + file + ": " + e.getMessage());
+        }
+        return tasks.size();
+    }
+
+    private static void writeCsv(TaskList tasks, Writer out) throws IOException {
+        out.write(CSV_HEADER);
+        out.write('\n');
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            out.write(t.typeCode());
+            out.write(t.isDone() ? ",1," : ",0,");
+            writeCsvField(out, t.getDescription());
+            out.write(',');
+            if (t instanceof Deadline) {
+                out.write(((Deadline) t).getBy().toString());
+                out.write(',');
+            } else if (t instanceof Event) {
+                out.write(((Event) t).getFrom().toString());
+                out.write(',');
+                out.write(((Event) t).getTo().toString());
+            } else {
+                out.write(',');
+            }
+            out.write(',');
+            if (t.getDoneAt() != null) {
+                out.write(t.getDoneAt().toString());
+            }
+            out.write(',');
+            for (int j = 0; j < t.getTags().size(); j++) {
+                out.write(j == 0 ? "#" : " #");
+                out.write(t.getTags().get(j));
+            }
+            out.write('\n');
+        }
+    }
+
+    private static void writeCsvField(Writer out, String s) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote && !s.isEmpty() && s.charAt(0) != ' ' && s.charAt(s.length() - 1) != ' ') {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void writeIcs(TaskList tasks, Writer out) throws IOException {
+        String stamp = ICS_DATETIME.format(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC)) + "Z";
+        String uidSuffix = "-" + System.currentTimeMillis() + "@butler";
+        IcsWriter ics = new IcsWriter(out);
+        ics.line("BEGIN:VCALENDAR");
+        ics.line("VERSION:2.0");
+        ics.line("PRODID:-//Butler//Butler//EN");
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            String component = t instanceof Event ? "VEVENT" : "VTODO";
+            ics.line("BEGIN:" + component);
+            ics.line("UID:" + (i + 1) + uidSuffix);
+            ics.line("DTSTAMP:" + stamp);
+            ics.line("SUMMARY:" + escapeText(t.getDescription()));
+            if (t instanceof Deadline) {
+                ics.line("DUE;VALUE=DATE:" + ICS_DATE.format(((Deadline) t).getBy()));
+            } else if (t instanceof Event) {
+                ics.line("DTSTART:" + ICS_DATETIME.format(((Event) t).getFrom()));
+                ics.line("DTEND:" + ICS_DATETIME.format(((Event) t).getTo()));
+            }
+            if (t instanceof Event) {
+                if (t.isDone()) {
+                    ics.line("X-BUTLER-DONE:TRUE");
+                }
+            } else {
+                ics.line(t.isDone() ? "STATUS:COMPLETED" : "STATUS:NEEDS-ACTION");
+            }
+            if (t.getDoneAt() != null) {
+                // COMPLETED is only defined for VTODO, and always in UTC.
+                String utc = ICS_DATETIME.format(t.getDoneAt().atZone(ZoneId.systemDefault())
+                        .withZoneSameInstant(ZoneOffset.UTC)) + "Z";
+                ics.line((t instanceof Event ? "X-BUTLER-COMPLETED:" : "COMPLETED:") + utc);
+            }
+            if (!t.getTags().isEmpty()) {
+                ics.line("CATEGORIES:" + String.join(",", t.getTags()));
+            }
+            ics.line("END:" + component);
+        }
+        ics.line("END:VCALENDAR");
+    }
+
+    private static String escapeText(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' || c == ';' || c == ',') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Writes content lines with CRLF endings, folding them at {@value #ICS_LINE_OCTETS} bytes. */
+    private static final class IcsWriter {
+        private final Writer out;
+
+        IcsWriter(Writer out) {
+            this.out = out;
+        }
+
+        void line(String s) throws IOException {
+            int octets = 0;
+            int start = 0;
+            for (int i = 0; i < s.length(); ) {
+                int cp = s.codePointAt(i);
+                int len = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+                if (octets + len > ICS_LINE_OCTETS) {
+                    out.write(s, start, i - start);
+                    out.write("\r\n ");
+                    start = i;
+                    octets = 1; // the leading space
+                }
+                octets += len;
+                i += Character.charCount(cp);
+            }
+            out.write(s, start, s.length() - start);
+            out.write("\r\n");
+        }
+    }
+}
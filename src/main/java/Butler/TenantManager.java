@@ -0,0 +1,268 @@
+package Butler;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every user their own {@link Butler}, backed by their own task file,
+ * while keeping only the recently used ones in memory.
+ * <p>
+ * Loaded tenants live in an access-ordered LRU map. When there are more than
+ * {@code maxTenants} of them, or their task lists together hold more than
+ * {@code maxTasks} tasks, the least recently used tenants are flushed to disk
+ * and dropped; the next command for them loads them again. Tenants that are
+ * running a command are never evicted.
+ * <p>
+ * Safe to use from many threads: a tenant is loaded once even if several
+ * threads ask for it at the same time, and different tenants' commands run
+ * in parallel.
+ * <p>
+ * Each user's {@code import} and {@code export} commands are confined to
+ * {@code transfers/<user>/} inside the tenant directory.
+ */
+public class TenantManager {
+    private static final Pattern VALID_USER = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    /** Subdirectory of the tenant directory holding each user's import and export files. */
+    static final String TRANSFER_DIR = "transfers";
+
+    /** A loaded (or loading) tenant. Guarded by the manager's lock, apart from the future. */
+    private static final class Tenant {
+        final CompletableFuture<Butler> butler = new CompletableFuture<>();
+        int inUse;
+        int tasks;
+    }
+
+    private final Path dir;
+    private final int maxTenants;
+    private final long maxTasks;
+    private volatile Consumer<Butler> setup;
+    private final LinkedHashMap<String, Tenant> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    /** Evicted tenants whose flush is still running; reloading them waits for it. */
+    private final Map<String, CompletableFuture<Void>> flushing = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    /**
+     * Creates a tenant manager.
+     *
+     * @param dir        the directory holding one {@code <user>.txt} task file per user
+     * @param maxTenants the most tenants to keep loaded
+     * @param maxTasks   the most tasks to keep loaded across all tenants
+     * @param setup      applied to each tenant's Butler right after it is loaded
+     */
+    public TenantManager(Path dir, int maxTenants, long maxTasks, Consumer<Butler> setup) {
+        assert maxTenants > 0 && maxTasks > 0 : "limits must be positive";
+        this.dir = dir;
+        this.maxTenants = maxTenants;
+        this.maxTasks = maxTasks;
+        this.setup = setup;
+    }
+
+    /**
+     * Adds a step to run on each tenant's Butler right after it is loaded,
+     * after the steps given earlier. Tenants already loaded are not affected.
+     *
+     * @param action the step to add
+     */
+    public synchronized void onLoad(Consumer<Butler> action) {
+        setup = setup.andThen(action);
+    }
+
+    /**
+     * Runs one command for a user, loading their task list first if needed.
+     *
+     * @param user  the user's name: letters, digits, {@code _} or {@code -}
+     * @param input the command line
+     * @return Butler's response
+     * @throws ButlerException if the user name is not valid
+     */
+    public String getResponse(String user, String input) throws ButlerException {
+        checkUser(user);
+        Tenant t = acquire(user);
+        try {
+            Butler butler = t.butler.join();
+            String response = butler.getResponse(input);
+            int tasks = butler.taskCount();
+            synchronized (this) {
+                t.tasks = tasks;
+            }
+            return response;
+        } finally {
+            release(t);
+        }
+    }
+
+    /**
+     * Checks that a user name is safe to use as a file name.
+     *
+     * @param user the user's name
+     * @throws ButlerException if it is empty, too long or has other characters
+     */
+    public static void checkUser(String user) throws ButlerException {
+        if (user == null || !VALID_USER.matcher(user).matches()) {
+            throw new ButlerException("User names may only use letters, digits, '_' and '-' (up to 64).");
+        }
+    }
+
+    private Tenant acquire(String user) {
+        Tenant t;
+        boolean load;
+        CompletableFuture<Void> pendingFlush = null;
+        synchronized (this) {
+            t = loaded.get(user);
+            load = t == null;
+            if (load) {
+                t = new Tenant();
+                loaded.put(user, t);
+                pendingFlush = flushing.get(user);
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            t.inUse++;
+        }
+        if (load) {
+            long start = System.nanoTime();
+            try {
+                if (pendingFlush != null) {
+                    pendingFlush.join();
+                }
+                Butler b = new Butler(dir.resolve(user + ".txt").toString());
+                b.setTransferDirectory(dir.resolve(TRANSFER_DIR).resolve(user));
+                setup.accept(b);
+                loadLatency.record(System.nanoTime() - start);
+                synchronized (this) {
+                    t.tasks = b.taskCount();
+                }
+                t.butler.complete(b);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    loaded.remove(user, t);
+                }
+                t.butler.completeExceptionally(e);
+            }
+            evictIfNeeded();
+        }
+        return t;
+    }
+
+    private void release(Tenant t) {
+        synchronized (this) {
+            t.inUse--;
+        }
+        evictIfNeeded();
+    }
+
+    /** Flushes and drops least recently used idle tenants until the limits hold. */
+    private void evictIfNeeded() {
+        while (true) {
+            String user = null;
+            Tenant victim = null;
+            CompletableFuture<Void> flushed = new CompletableFuture<>();
+            synchronized (this) {
+                long tasks = 0;
+                for (Tenant t : loaded.values()) {
+                    tasks += t.tasks;
+                }
+                if (loaded.size() <= maxTenants && tasks <= maxTasks) {
+                    return;
+                }
+                for (Iterator<Map.Entry<String, Tenant>> it = loaded.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Tenant> e = it.next();
+                    if (e.getValue().inUse == 0 && e.getValue().butler.isDone()) {
+                        it.remove();
+                        user = e.getKey();
+                        victim = e.getValue();
+                        break;
+                    }
+                }
+                if (victim == null) {
+                    return; // everything over the limit is busy; try again on the next release
+                }
+                flushing.put(user, flushed);
+                evictions.increment();
+            }
+            // Nobody can reach the victim any more, and a reload waits for this flush.
+            try {
+                if (!victim.butler.isCompletedExceptionally()) {
+                    victim.butler.join().flush();
+                }
+            } finally {
+                synchronized (this) {
+                    flushing.remove(user, flushed);
+                }
+                flushed.complete(null);
+            }
+        }
+    }
+
+    /** Flushes every loaded tenant, e.g. before shutting down. */
+    public void flushAll() {
+        Tenant[] all;
+        synchronized (this) {
+            all = loaded.values().toArray(new Tenant[0]);
+        }
+        for (Tenant t : all) {
+            if (t.butler.isDone() && !t.butler.isCompletedExceptionally()) {
+                t.butler.join().flush();
+            }
+        }
+    }
+
+    /** Returns the number of tenants currently loaded. */
+    public synchronized int loadedCount() {
+        return loaded.size();
+    }
+
+    /** Returns how many commands found their tenant already loaded. */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Returns how many commands had to load their tenant first. */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Returns how many tenants have been flushed and dropped. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Describes the cache: loaded tenants, hit rate, evictions and load latency.
+     *
+     * @return the report text
+     */
+    public String report() {
+        long h = hits();
+        long m = misses();
+        long total = h + m;
+        int count;
+        long tasks = 0;
+        synchronized (this) {
+            count = loaded.size();
+            for (Map.Entry<String, Tenant> e : loaded.entrySet()) {
+                tasks += e.getValue().tasks;
+            }
+        }
+        return String.format("Tenants loaded: %d of %d (%d of %d tasks)%n"
+                        + "Cache: %d hits, %d misses (%.1f%% hit rate), %d evictions%n"
+                        + "Load latency (p50 / p99 / max): %s / %s / %s",
+                count, maxTenants, tasks, maxTasks,
+                h, m, total == 0 ? 0.0 : 100.0 * h / total, evictions(),
+                CommandMetrics.formatNanos(loadLatency.percentile(50)),
+                CommandMetrics.formatNanos(loadLatency.percentile(99)),
+                CommandMetrics.formatNanos(loadLatency.max()));
+    }
+}
@@ -0,0 +1,219 @@
+package Butler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel for scheduling large numbers of timeouts.
+ * <p>
+ * Time is divided into ticks. Level 0 has one slot per tick; each higher level
+ * has slots that span a whole rotation of the level below. A timeout is placed
+ * in the lowest level that can hold its deadline and is cascaded down as time
+ * advances, so scheduling, cancelling and expiring are all O(1) per timeout
+ * regardless of how many are pending.
+ * <p>
+ * Time is supplied by the caller through {@link #advanceTo(long, Consumer)},
+ * which keeps the wheel deterministic and independent of any thread.
+ * All methods are thread-safe.
+ *
+ * @param <T> the payload carried by each timeout
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] wheels;
+    private long currentTick;
+    private int pending;
+
+    /**
+     * A scheduled timeout; kept in a doubly linked list per slot so that it can
+     * be cancelled in constant time.
+     *
+     * @param <T> the payload type
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private Timeout<T>[] slots;
+        private int slot = -1;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /** Returns the payload of this timeout. */
+        public T payload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Creates a timing wheel.
+     *
+     * @param tickMillis the duration of one tick in milliseconds
+     * @param levels     the number of wheel levels; deadlines beyond
+     *                   {@code 64^levels} ticks are parked and re-examined periodically
+     * @param startMillis the current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        assert tickMillis > 0 && levels > 0 : "tick and levels must be positive";
+        this.tickMillis = tickMillis;
+        this.wheels = newWheels(levels);
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** Allocates the slot arrays; generic arrays can only be created unchecked. */
+    @SuppressWarnings("unchecked")
+    private static <T> Timeout<T>[][] newWheels(int levels) {
+        return (Timeout<T>[][]) new Timeout<?>[levels][SLOTS];
+    }
+
+    /**
+     * Schedules a payload to expire at the given time. Deadlines in the past
+     * expire on the next tick.
+     *
+     * @param deadlineMillis the expiry time in milliseconds
+     * @param payload        the payload to deliver on expiry
+     * @return a handle that can be passed to {@link #cancel(Timeout)}
+     */
+    public synchronized Timeout<T> schedule(long deadlineMillis, T payload) {
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        Timeout<T> t = new Timeout<>(payload, tick);
+        insert(t);
+        pending++;
+        return t;
+    }
+
+    /**
+     * Cancels a pending timeout. Cancelling an expired or already cancelled
+     * timeout has no effect.
+     *
+     * @param t the timeout to cancel
+     */
+    public synchronized void cancel(Timeout<T> t) {
+        if (t != null && t.slots != null) {
+            unlink(t);
+            pending--;
+        }
+    }
+
+    /** Returns the number of timeouts that have neither expired nor been cancelled. */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * Advances the wheel to the given time and delivers every payload whose
+     * deadline has passed. Payloads are delivered after the wheel's lock is
+     * released, in tick order.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @param onExpire  receives each expired payload
+     */
+    public void advanceTo(long nowMillis, Consumer<T> onExpire) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long target = nowMillis / tickMillis;
+            while (currentTick < target) {
+                currentTick++;
+                cascade();
+                expireCurrentSlot(expired);
+            }
+        }
+        for (T payload : expired) {
+            onExpire.accept(payload);
+        }
+    }
+
+    // ---------- Wheel mechanics ----------
+
+    private void cascade() {
+        // Levels are cascaded from the top so entries can fall more than one level at once.
+        for (int level = wheels.length - 1; level >= 1; level--) {
+            long shift = (long) SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            int slot = (int) ((currentTick >>> shift) & SLOT_MASK);
+            Timeout<T> t = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (t != null) {
+                Timeout<T> next = t.next;
+                t.prev = null;
+                t.next = null;
+                t.slots = null;
+                insert(t);
+                t = next;
+            }
+        }
+    }
+
+    private void expireCurrentSlot(List<T> expired) {
+        int slot = (int) (currentTick & SLOT_MASK);
+        Timeout<T> t = wheels[0][slot];
+        wheels[0][slot] = null;
+        while (t != null) {
+            Timeout<T> next = t.next;
+            t.prev = null;
+            t.next = null;
+            t.slots = null;
+            if (t.deadlineTick > currentTick) {
+                insert(t); // parked beyond the horizon of a single-level wheel
+            } else {
+                pending--;
+                expired.add(t.payload);
+            }
+            t = next;
+        }
+    }
+
+    private void insert(Timeout<T> t) {
+        long delta = t.deadlineTick - currentTick;
+        int level = 0;
+        while (level < wheels.length - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long shift = (long) SLOT_BITS * level;
+        int slot;
+        if (delta >= 1L << (shift + SLOT_BITS)) {
+            // Beyond the wheel's horizon: park in the slot visited last and re-examine then.
+            slot = (int) (((currentTick >>> shift) - 1) & SLOT_MASK);
+        } else {
+            slot = (int) ((t.deadlineTick >>> shift) & SLOT_MASK);
+        }
+        Timeout<T>[] slots = wheels[level];
+        t.slots = slots;
+        t.slot = slot;
+        t.prev = null;
+        t.next = slots[slot];
+        if (t.next != null) {
+            t.next.prev = t;
+        }
+        slots[slot] = t;
+    }
+
+    private void unlink(Timeout<T> t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            t.slots[t.slot] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = null;
+        t.next = null;
+        t.slots = null;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
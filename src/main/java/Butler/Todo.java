@@ -42,7 +42,7 @@ public class Todo extends Task {
     /**
      * Serializes this todo task into a storable string format.
      * <p>
-     * Format: {@code T|<doneFlag>|<description>}
+     * Format: {@code T|<doneFlag>|<description>[|#<tags>][|@<doneAt>]}
      *
      * @return the serialized representation of this todo
      */
@@ -52,6 +52,6 @@ public class Todo extends Task {
                 typeCode(),
                 isDone ? "1" : "0",
                 description
-        );
+        ) + optionalFields();
     }
 }
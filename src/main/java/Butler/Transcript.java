@@ -0,0 +1,455 @@
+package Butler;
+
+import javafx.collections.ObservableListBase;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * The conversation, kept within a memory budget.
+ * <p>
+ * Every message is appended to a transcript file by a background thread, so
+ * the JavaFX application thread never waits for the disk; until its record is
+ * written, a message is served from memory. Only the most recent messages, up
+ * to {@code charBudget} characters in total, stay in memory; older ones are
+ * read back from the file when the list view asks for them, through a small
+ * cache of recently read messages that keeps to the same budget. The last
+ * {@value #MIN_IN_MEMORY} messages stay in memory beyond the budget only if
+ * each of them is short, so they never hold more than the budget again.
+ * <p>
+ * Each record in the file is {@code [int index][byte speaker][int length][UTF-8 text]}.
+ * Replacing a message appends a new record for the same index, so the file is
+ * never rewritten; the offsets index always points at the latest record.
+ * <p>
+ * Apart from {@link #search} and {@link #close}, all methods must be called on
+ * the JavaFX application thread. If the file cannot be opened, {@link #open} falls back
+ * to keeping the whole conversation in memory.
+ */
+public class Transcript extends ObservableListBase<Message> {
+    /** Recent messages that stay in memory beyond the budget, if each is short. */
+    private static final int MIN_IN_MEMORY = 8;
+    private static final int CACHE_SIZE = 256;
+    private static final String SESSION_PREFIX = "session-";
+    private static final String SESSION_SUFFIX = ".log";
+    private static final DateTimeFormatter SESSION_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final Logger LOGGER = Logger.getLogger(Transcript.class.getName());
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+    private static final Message.Speaker[] SPEAKERS = Message.Speaker.values();
+
+    private final Path file;
+    private final long charBudget;
+    /** The transcript file, or null when it could not be opened and everything stays in memory. */
+    private final FileChannel channel;
+    /** Writes records in the order they were added; null when there is no file. */
+    private final ExecutorService writer;
+    /** Messages whose records are not on disk yet, by file offset; kept for good if their write fails. */
+    private final Map<Long, Message> unwritten = new ConcurrentHashMap<>();
+
+    /** File offset of the latest record for each message; guarded by {@code this}. */
+    private long[] offsets = new long[1024];
+    private int size;
+    private long end;
+
+    /** The in-memory tail, a circular buffer holding messages {@code size - tailCount} onwards. */
+    private Message[] tail = new Message[MIN_IN_MEMORY * 2];
+    private int tailHead;
+    private int tailCount;
+    private long tailChars;
+
+    private final Map<Integer, Message> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true);
+    private long cacheChars;
+
+    /**
+     * Creates an empty transcript backed by the given file, which is created
+     * or truncated.
+     *
+     * @param file       the transcript file
+     * @param charBudget the number of characters of message text to keep in memory
+     * @throws IOException if the file cannot be opened
+     */
+    public Transcript(Path file, long charBudget) throws IOException {
+        assert charBudget >= 0 : "charBudget must not be negative";
+        this.file = file;
+        this.charBudget = charBudget;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "butler-transcript");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Creates a transcript that keeps every message in memory. */
+    private Transcript() {
+        this.file = null;
+        this.charBudget = Long.MAX_VALUE;
+        this.channel = null;
+        this.writer = null;
+    }
+
+    /**
+     * Opens a transcript backed by the given file, falling back to keeping the
+     * whole conversation in memory if the file cannot be opened.
+     *
+     * @param file       the transcript file
+     * @param charBudget the number of characters of message text to keep in memory
+     * @return the transcript
+     */
+    public static Transcript open(Path file, long charBudget) {
+        try {
+            return new Transcript(file, charBudget);
+        } catch (IOException e) {
+            return new Transcript();
+        }
+    }
+
+    /**
+     * Opens a transcript for a new session in the given directory, deleting
+     * the oldest session files so that at most {@code keep} remain, this one
+     * included.
+     *
+     * @param dir        the directory holding session transcripts
+     * @param keep       the number of session files to keep, at least 1
+     * @param charBudget the number of characters of message text to keep in memory
+     * @return the transcript
+     */
+    public static Transcript openSession(Path dir, int keep, long charBudget) {
+        assert keep >= 1 : "must keep at least the new session";
+        List<Path> sessions = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(SESSION_PREFIX)
+                    && p.getFileName().toString().endsWith(SESSION_SUFFIX)).forEach(sessions::add);
+        } catch (IOException e) {
+            // no directory yet, or unreadable: nothing to prune
+        }
+        sessions.sort(null); // timestamped names sort oldest first
+        for (int i = 0; i < sessions.size() - (keep - 1); i++) {
+            try {
+                Files.deleteIfExists(sessions.get(i));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not delete old transcript " + sessions.get(i), e);
+            }
+        }
+        String name = SESSION_PREFIX + LocalDateTime.now().format(SESSION_STAMP) + SESSION_SUFFIX;
+        return open(dir.resolve(name), charBudget);
+    }
+
+    /**
+     * Waits for pending writes and closes the transcript file. Messages stay
+     * readable from memory only as far as the budget allows, so the list
+     * should not be used afterwards.
+     */
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not close transcript " + file, e);
+        }
+    }
+
+    // ---------- List ----------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Message get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int firstInMemory = size - tailCount;
+        if (index >= firstInMemory) {
+            return tail[slot(index - firstInMemory)];
+        }
+        Message m = cache.get(index);
+        if (m == null) {
+            m = read(offsetOf(index));
+            cache.put(index, m);
+            cacheChars += m.getText().length();
+            trimCache();
+        }
+        return m;
+    }
+
+    @Override
+    public boolean add(Message m) {
+        assert m != null : "message must not be null";
+        int index = size;
+        long offset = write(index, m);
+        synchronized (this) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size] = offset;
+            size++;
+            pushTail(m);
+            evict();
+        }
+
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+        return true;
+    }
+
+    @Override
+    public Message set(int index, Message m) {
+        assert m != null : "message must not be null";
+        Message old = get(index);
+        long offset = write(index, m);
+        synchronized (this) {
+            offsets[index] = offset;
+            int firstInMemory = size - tailCount;
+            if (index >= firstInMemory) {
+                int s = slot(index - firstInMemory);
+                tailChars += m.getText().length() - tail[s].getText().length();
+                tail[s] = m;
+                evict();
+            } else {
+                Message cached = cache.remove(index);
+                if (cached != null) {
+                    cacheChars -= cached.getText().length();
+                }
+            }
+        }
+
+        beginChange();
+        nextSet(index, old);
+        endChange();
+        return old;
+    }
+
+    /** Returns the number of messages currently held in memory. */
+    public int inMemoryCount() {
+        return tailCount;
+    }
+
+    // ---------- Search ----------
+
+    /**
+     * Streams through the transcript file and reports every message whose text
+     * contains {@code keyword}, oldest first. Only one message is held at a time,
+     * so this is safe to call on any thread, however long the history is.
+     *
+     * @param keyword the text to look for
+     * @param onMatch receives each matching message and its index in this list
+     * @throws IOException if the transcript file cannot be read
+     */
+    public void search(String keyword, ObjIntConsumer<Message> onMatch) throws IOException {
+        if (channel == null) {
+            searchInMemory(keyword, onMatch);
+            return;
+        }
+        flush();
+        long[] live;
+        long limit;
+        synchronized (this) {
+            live = Arrays.copyOf(offsets, size);
+            limit = end;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            long pos = 0;
+            while (pos < limit) {
+                int index = in.readInt();
+                int speaker = in.readByte();
+                int len = in.readInt();
+                byte[] bytes = in.readNBytes(len);
+                if (bytes.length < len) {
+                    throw new EOFException("Truncated transcript record at " + pos);
+                }
+                // Skip records that were superseded by a later set().
+                if (index < live.length && live[index] == pos) {
+                    String text = new String(bytes, StandardCharsets.UTF_8);
+                    if (text.contains(keyword)) {
+                        onMatch.accept(new Message(SPEAKERS[speaker], text), index);
+                    }
+                }
+                pos += HEADER_BYTES + len;
+            }
+        }
+    }
+
+    private void searchInMemory(String keyword, ObjIntConsumer<Message> onMatch) {
+        Message[] snapshot;
+        synchronized (this) {
+            snapshot = new Message[tailCount];
+            for (int k = 0; k < tailCount; k++) {
+                snapshot[k] = tail[slot(k)];
+            }
+        }
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i].getText().contains(keyword)) {
+                onMatch.accept(snapshot[i], i);
+            }
+        }
+    }
+
+    // ---------- Storage ----------
+
+    /**
+     * Reserves the next record in the file for a message and hands the write
+     * to the writer thread; the message is served from {@code unwritten}
+     * until the write is done.
+     */
+    private long write(int index, Message m) {
+        if (channel == null) {
+            return -1;
+        }
+        byte[] text = m.getText().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + text.length);
+        buf.putInt(index).put((byte) m.getSpeaker().ordinal()).putInt(text.length).put(text).flip();
+        long offset;
+        synchronized (this) {
+            offset = end;
+            end = offset + buf.limit();
+        }
+        unwritten.put(offset, m);
+        writer.execute(() -> {
+            try {
+                while (buf.hasRemaining()) {
+                    channel.write(buf, offset + buf.position());
+                }
+                unwritten.remove(offset);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not write transcript " + file
+                        + "; keeping the message in memory", e);
+            }
+        });
+        return offset;
+    }
+
+    /** Waits until every record handed to the writer so far is on disk. */
+    private void flush() throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the transcript to be written", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private Message read(long offset) {
+        Message m = unwritten.get(offset);
+        if (m != null) {
+            return m;
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, offset);
+            header.getInt(); // index
+            Message.Speaker speaker = SPEAKERS[header.get()];
+            ByteBuffer text = ByteBuffer.allocate(header.getInt());
+            readFully(text, offset + HEADER_BYTES);
+            return new Message(speaker, new String(text.array(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transcript " + file, e);
+        }
+    }
+
+    private void readFully(ByteBuffer buf, long offset) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) {
+                throw new EOFException("Truncated transcript record at " + offset);
+            }
+        }
+        buf.flip();
+    }
+
+    private synchronized long offsetOf(int index) {
+        return offsets[index];
+    }
+
+    // ---------- In-memory tail ----------
+
+    private int slot(int k) {
+        return (tailHead + k) % tail.length;
+    }
+
+    private void pushTail(Message m) {
+        if (tailCount == tail.length) {
+            Message[] grown = new Message[tail.length * 2];
+            for (int k = 0; k < tailCount; k++) {
+                grown[k] = tail[slot(k)];
+            }
+            tail = grown;
+            tailHead = 0;
+        }
+        tail[slot(tailCount)] = m;
+        tailCount++;
+        tailChars += m.getText().length();
+    }
+
+    /**
+     * Drops the oldest in-memory messages until the tail fits the budget; they
+     * stay on disk. The last {@value #MIN_IN_MEMORY} messages are kept beyond
+     * the budget only while none of them is longer than its share of it.
+     */
+    private void evict() {
+        while (channel != null && tailChars > charBudget && tailCount > 0
+                && !(tailCount <= MIN_IN_MEMORY && allShort())) {
+            tailChars -= tail[tailHead].getText().length();
+            tail[tailHead] = null;
+            tailHead = (tailHead + 1) % tail.length;
+            tailCount--;
+        }
+    }
+
+    private boolean allShort() {
+        for (int k = 0; k < tailCount; k++) {
+            if (tail[slot(k)].getText().length() > charBudget / MIN_IN_MEMORY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Drops the least recently read messages until the cache fits its size and the budget. */
+    private void trimCache() {
+        Iterator<Message> eldest = cache.values().iterator();
+        while (cache.size() > CACHE_SIZE || (cacheChars > charBudget && cache.size() > 1)) {
+            cacheChars -= eldest.next().getText().length();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package Butler;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails when a hot path allocates more per operation than its budget in
+ * {@code allocation-budgets.properties}.
+ * <p>
+ * Each operation is warmed up so the JIT has compiled it, then run many times
+ * while the thread's allocated bytes are read from
+ * {@link com.sun.management.ThreadMXBean}. The test is skipped on JVMs that
+ * do not support allocation counting.
+ */
+class AllocationBudgetTest {
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 20_000;
+    private static final int TASKS = 100;
+
+    private static Properties budgets;
+    private static com.sun.management.ThreadMXBean threads;
+
+    /** Keeps results reachable so the JIT cannot discard the measured work. */
+    private Object sink;
+
+    @TempDir
+    Path dir;
+
+    private Butler butler;
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            assertNotNull(in, "allocation-budgets.properties missing from test resources");
+            budgets.load(in);
+        }
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported(),
+                "allocation counting not supported on this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        butler = new Butler(dir.resolve("tasks.txt").toString());
+        butler.setAutoSave(false);
+        for (int i = 0; i < TASKS; i++) {
+            butler.getResponse(i % 2 == 0 ? "todo read book " + i : "todo buy milk " + i);
+        }
+    }
+
+    @Test
+    void getResponse_find_withinBudget() {
+        assertWithinBudget("getResponse.find", () -> butler.getResponse("find book"));
+    }
+
+    @Test
+    void getResponse_list_withinBudget() {
+        assertWithinBudget("getResponse.list", () -> butler.getResponse("list"));
+    }
+
+    @Test
+    void getResponse_mark_withinBudget() {
+        assertWithinBudget("getResponse.mark", () -> butler.getResponse("mark 42"));
+    }
+
+    @Test
+    void splitCommand_withinBudget() {
+        assertWithinBudget("Parser.splitCommand",
+                () -> Parser.splitCommand("deadline return book /by 2019-06-06"));
+    }
+
+    @Test
+    void parseLineToTask_withinBudget() {
+        Storage storage = new Storage(dir.resolve("unused.txt").toString());
+        assertWithinBudget("Storage.parseLineToTask.todo", () -> storage.parseLineToTask("T|1|read book"));
+        assertWithinBudget("Storage.parseLineToTask.deadline",
+                () -> storage.parseLineToTask("D|0|return book|2019-06-06"));
+        assertWithinBudget("Storage.parseLineToTask.event",
+                () -> storage.parseLineToTask("E|0|project meeting|2019-08-06T14:00|2019-08-06T16:00"));
+    }
+
+    @Test
+    void serialize_withinBudget() {
+        Task todo = new Todo("read book");
+        Task deadline = new Deadline("return book", LocalDate.of(2019, 6, 6));
+        Task event = new Event("project meeting", LocalDateTime.of(2019, 8, 6, 14, 0),
+                LocalDateTime.of(2019, 8, 6, 16, 0));
+        assertWithinBudget("Task.serialize.todo", todo::serialize);
+        assertWithinBudget("Task.serialize.deadline", deadline::serialize);
+        assertWithinBudget("Task.serialize.event", event::serialize);
+    }
+
+    private void assertWithinBudget(String name, Supplier<Object> op) {
+        String budget = budgets.getProperty(name);
+        assertNotNull(budget, "no allocation budget for " + name);
+        long allowed = Long.parseLong(budget.trim());
+
+        for (int i = 0; i < WARMUP; i++) {
+            sink = op.get();
+        }
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < MEASURED; i++) {
+            sink = op.get();
+        }
+        long perOp = (threads.getThreadAllocatedBytes(tid) - before) / MEASURED;
+
+        assertTrue(perOp <= allowed, name + " allocates " + perOp + " bytes/op, budget is " + allowed);
+    }
+}
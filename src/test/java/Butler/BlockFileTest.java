@@ -0,0 +1,125 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockFileTest {
+    private static final int TASKS = 3 * BlockFile.TASKS_PER_BLOCK + 17;
+
+    @TempDir
+    Path dir;
+
+    private static List<Task> sampleTasks() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            Task t;
+            switch (i % 3) {
+            case 0:
+                t = new Todo("read book " + i + " café");
+                break;
+            case 1:
+                t = new Deadline("return book " + i, LocalDate.of(2019, 6, 1 + i % 28));
+                break;
+            default:
+                t = new Event("meeting " + i, LocalDateTime.of(2019, 8, 6, 14, 0),
+                        LocalDateTime.of(2019, 8, 6, 16, 0));
+            }
+            if (i % 5 == 0) {
+                t.mark();
+            }
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    private static List<String> serialized(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks) {
+            lines.add(t.serialize());
+        }
+        return lines;
+    }
+
+    /** Flips one byte in the middle of the given block. */
+    private static void corruptBlock(Path file, int block) throws Exception {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BlockFile.Block b = BlockFile.readIndex(ch).get(block);
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long at = b.offset + b.compressedLength / 2;
+            ch.read(one, at);
+            one.put(0, (byte) ~one.get(0)).rewind();
+            ch.write(one, at);
+        }
+    }
+
+    @Test
+    void saveThenLoad_blockFile_roundTripsAndIsSmallerThanText() throws Exception {
+        List<Task> tasks = sampleTasks();
+        Storage blocks = new Storage(dir.resolve("tasks.blk").toString());
+        Storage text = new Storage(dir.resolve("tasks.txt").toString());
+        blocks.save(tasks);
+        text.save(tasks);
+
+        List<Double> progress = new ArrayList<>();
+        assertEquals(serialized(tasks), serialized(blocks.load(progress::add)));
+        assertEquals(1.0, progress.get(progress.size() - 1));
+        assertTrue(Files.size(dir.resolve("tasks.blk")) * 3 < Files.size(dir.resolve("tasks.txt")));
+        assertFalse(Files.exists(dir.resolve("tasks.blk.tmp")));
+    }
+
+    @Test
+    void loadRange_acrossBlockBoundary_readsOnlyThoseBlocks() throws Exception {
+        List<Task> tasks = sampleTasks();
+        Path file = dir.resolve("tasks.blk");
+        Storage storage = new Storage(file.toString());
+        storage.save(tasks);
+        assertEquals(serialized(tasks.subList(TASKS - 2, TASKS)), serialized(storage.loadRange(TASKS - 2, TASKS + 9)));
+
+        // Damage a block outside the range: the range read must not notice.
+        corruptBlock(file, 3);
+        int from = BlockFile.TASKS_PER_BLOCK - 2;
+        int to = BlockFile.TASKS_PER_BLOCK + 3;
+        assertEquals(serialized(tasks.subList(from, to)), serialized(storage.loadRange(from, to)));
+        assertTrue(storage.loadRange(TASKS - 2, TASKS).isEmpty());
+    }
+
+    @Test
+    void loadRange_textFile_sameTasksAsBlockFile() {
+        List<Task> tasks = sampleTasks();
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        storage.save(tasks);
+        assertEquals(serialized(tasks.subList(10, 20)), serialized(storage.loadRange(10, 20)));
+    }
+
+    @Test
+    void load_corruptBlock_skipsOnlyThatBlock() throws Exception {
+        List<Task> tasks = sampleTasks();
+        Path file = dir.resolve("tasks.blk");
+        Storage storage = new Storage(file.toString());
+        storage.save(tasks);
+        corruptBlock(file, 1);
+
+        List<Task> expected = new ArrayList<>(tasks.subList(0, BlockFile.TASKS_PER_BLOCK));
+        expected.addAll(tasks.subList(2 * BlockFile.TASKS_PER_BLOCK, TASKS));
+        assertEquals(serialized(expected), serialized(storage.load()));
+    }
+
+    @Test
+    void load_notABlockFile_returnsEmptyList() throws Exception {
+        Path file = dir.resolve("tasks.blk");
+        Files.writeString(file, "T|0|read book\n");
+        assertTrue(new Storage(file.toString()).load().isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ButlerServerTest {
+
+    @TempDir
+    Path dir;
+
+    /** Reads one response: every line up to the terminating empty line. */
+    private static String readResponse(BufferedReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    private static Socket connect(SocketAddress address) throws IOException {
+        Socket s = new Socket();
+        s.connect(address);
+        return s;
+    }
+
+    @Test
+    void pipelinedCommands_answeredInOrder_byeClosesConnection() throws Exception {
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+        try (ButlerServer server = new ButlerServer(butler, 0).start();
+             Socket s = connect(server.address())) {
+            Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            out.write("todo read book\nlist\nfrobnicate\nbye\nlist\n");
+            out.flush();
+
+            assertTrue(readResponse(in).startsWith("Got it. I've added this task:"));
+            assertEquals("Here are the tasks in your list:\n 1.[T][ ] read book", readResponse(in));
+            assertEquals("⚠ Sorry, I don't recognize that command.", readResponse(in));
+            assertEquals("Bye. Hope to see you again soon!", readResponse(in));
+            assertNull(in.readLine(), "connection should be closed after bye");
+        }
+    }
+
+    @Test
+    void multiUser_commandsBeforeUser_rejectedThenServedFromOwnList() throws Exception {
+        TenantManager tenants = new TenantManager(dir, 10, 1000, b -> { });
+        try (ButlerServer server = new ButlerServer(tenants, 0).start();
+             Socket s = connect(server.address())) {
+            Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            out.write("list\nuser alice\ntodo read book\nbye\n");
+            out.flush();
+
+            assertEquals("⚠ Please tell me who you are first: user <name>", readResponse(in));
+            assertEquals("Hello, alice! What can I do for you?", readResponse(in));
+            assertTrue(readResponse(in).startsWith("Got it. I've added this task:"));
+            assertEquals("Bye. Hope to see you again soon!", readResponse(in));
+            assertNull(in.readLine(), "connection should be closed after bye");
+        }
+        assertEquals(List.of("T|0|read book"), Files.readAllLines(dir.resolve("alice.txt"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void concurrentClients_addTodos_everyTaskRecordedAndSavedOnce() throws Exception {
+        int clients = 200;
+        int perClient = 10;
+        Path file = dir.resolve("tasks.txt");
+        Butler butler = new Butler(file.toString());
+        butler.setAutoSave(false);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try (ButlerServer server = new ButlerServer(butler, 0).start()) {
+            SocketAddress address = server.address();
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                results.add(pool.submit(() -> {
+                    try (Socket s = connect(address)) {
+                        Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+                        BufferedReader in = new BufferedReader(
+                                new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                        List<String> replies = new ArrayList<>();
+                        for (int i = 0; i < perClient; i++) {
+                            out.write("todo c" + client + "x item" + i + "\nfind c" + client + "x\n");
+                        }
+                        out.flush();
+                        for (int i = 0; i < 2 * perClient; i++) {
+                            replies.add(readResponse(in));
+                        }
+                        return replies;
+                    }
+                }));
+            }
+            for (int c = 0; c < clients; c++) {
+                List<String> replies = results.get(c).get();
+                // Each find sees exactly the todos this client has added so far.
+                for (int i = 0; i < perClient; i++) {
+                    String found = replies.get(2 * i + 1);
+                    assertEquals(i + 1, found.split("\n").length - 1, found);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> saved = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(clients * perClient, saved.size());
+        Set<String> unique = new HashSet<>(saved);
+        assertEquals(clients * perClient, unique.size());
+        assertTrue(unique.contains("T|0|c7x item3"));
+    }
+}
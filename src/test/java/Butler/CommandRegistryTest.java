@@ -0,0 +1,49 @@
+package Butler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandRegistryTest {
+
+    private CommandRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CommandRegistry();
+        registry.register("deadline", args -> "deadline", "dl");
+        registry.register("delete", args -> "delete");
+        registry.register("list", args -> "list");
+    }
+
+    @Test
+    void resolve_exactName_returnsCommand() throws ButlerException {
+        assertEquals("delete", registry.resolve("delete 3", 6).name());
+    }
+
+    @Test
+    void resolve_uniquePrefix_returnsCommand() throws ButlerException {
+        assertEquals("delete", registry.resolve("del 3", 3).name());
+        assertEquals("list", registry.resolve("l", 1).name());
+    }
+
+    @Test
+    void resolve_alias_returnsAliasedCommand() throws ButlerException {
+        assertEquals("deadline", registry.resolve("dl a /by 2025-01-01", 2).name());
+    }
+
+    @Test
+    void resolve_ambiguousPrefix_throwsWithCandidates() {
+        ButlerException be = assertThrows(ButlerException.class, () -> registry.resolve("de", 2));
+        assertTrue(be.getMessage().contains("deadline"));
+        assertTrue(be.getMessage().contains("delete"));
+    }
+
+    @Test
+    void resolve_unknownOrOverlongWord_returnsNull() throws ButlerException {
+        assertNull(registry.resolve("blah", 4));
+        assertNull(registry.resolve("listing", 7));
+        assertNull(registry.resolve("", 0));
+    }
+}
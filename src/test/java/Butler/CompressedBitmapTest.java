@@ -0,0 +1,74 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+
+    private static BitSet toBitSet(CompressedBitmap b) {
+        BitSet bits = new BitSet();
+        b.forEach(bits::set);
+        return bits;
+    }
+
+    @Test
+    void addRemove_acrossArrayLimit_convertsBothWaysAndKeepsValues() {
+        CompressedBitmap b = new CompressedBitmap();
+        for (int i = 0; i <= CompressedBitmap.ARRAY_MAX; i++) {
+            b.add(i * 2);
+        }
+        b.add(70_000);
+        assertEquals(CompressedBitmap.ARRAY_MAX + 2, b.cardinality());
+        assertTrue(b.contains(2 * CompressedBitmap.ARRAY_MAX));
+        assertFalse(b.contains(1));
+
+        for (int i = 0; i <= CompressedBitmap.ARRAY_MAX; i++) {
+            b.remove(i * 2);
+        }
+        assertEquals(1, b.cardinality());
+        assertTrue(b.contains(70_000));
+        b.remove(70_000);
+        assertTrue(b.isEmpty());
+    }
+
+    @Test
+    void andOrAndNot_randomSetsOfMixedDensity_matchBitSet() {
+        Random random = new Random(42);
+        CompressedBitmap a = new CompressedBitmap();
+        CompressedBitmap b = new CompressedBitmap();
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        for (int i = 0; i < 200_000; i++) {
+            int x = random.nextInt(1 << 18);
+            // Dense in the first 65536 values, sparse elsewhere.
+            if (x < 1 << 16 || random.nextInt(20) == 0) {
+                a.add(x);
+                expectedA.set(x);
+            }
+            int y = random.nextInt(1 << 18);
+            if (y >= 1 << 17 || random.nextInt(20) == 0) {
+                b.add(y);
+                expectedB.set(y);
+            }
+        }
+
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        BitSet or = (BitSet) expectedA.clone();
+        or.or(expectedB);
+        BitSet andNot = (BitSet) expectedA.clone();
+        andNot.andNot(expectedB);
+
+        assertEquals(and, toBitSet(CompressedBitmap.and(a, b)));
+        assertEquals(and.cardinality(), CompressedBitmap.and(a, b).cardinality());
+        assertEquals(or, toBitSet(CompressedBitmap.or(a, b)));
+        assertEquals(or.cardinality(), CompressedBitmap.or(a, b).cardinality());
+        assertEquals(andNot, toBitSet(CompressedBitmap.andNot(a, b)));
+        assertEquals(andNot.cardinality(), CompressedBitmap.andNot(a, b).cardinality());
+        assertEquals(expectedA, toBitSet(a)); // inputs are left alone
+    }
+}
@@ -0,0 +1,83 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventScheduleTest {
+
+    private static Event event(String desc, int fromHour, int toHour) {
+        return new Event(desc,
+                LocalDateTime.of(2025, 11, 1, fromHour, 0),
+                LocalDateTime.of(2025, 11, 1, toHour, 0));
+    }
+
+    @Test
+    void overlapping_longEarlierEvent_isFound() {
+        EventSchedule schedule = new EventSchedule();
+        Event allDay = event("conference", 8, 18);
+        Event lunch = event("lunch", 12, 13);
+        schedule.add(allDay);
+        schedule.add(event("unrelated", 19, 20));
+
+        assertEquals(List.of(allDay), schedule.overlapping(lunch));
+    }
+
+    @Test
+    void overlapping_touchingEvents_doNotConflict() {
+        EventSchedule schedule = new EventSchedule();
+        schedule.add(event("morning", 9, 11));
+
+        assertTrue(schedule.overlapping(event("noon", 11, 12)).isEmpty());
+    }
+
+    @Test
+    void remove_eventNoLongerReported() {
+        EventSchedule schedule = new EventSchedule();
+        Event a = event("a", 9, 11);
+        Event b = event("b", 10, 12);
+        schedule.add(a);
+        schedule.add(b);
+
+        schedule.remove(a);
+
+        assertEquals(1, schedule.size());
+        assertTrue(schedule.overlapping(b).isEmpty());
+    }
+
+    @Test
+    void allConflicts_sameStartAndNested_reportsEveryPairOnce() {
+        EventSchedule schedule = new EventSchedule();
+        Event a = event("a", 9, 12);
+        Event b = event("b", 9, 10);
+        Event c = event("c", 11, 13);
+        Event d = event("d", 13, 14);
+        schedule.add(a);
+        schedule.add(b);
+        schedule.add(c);
+        schedule.add(d);
+
+        List<Event[]> pairs = schedule.allConflicts();
+
+        assertEquals(2, pairs.size());
+        assertArrayEquals(new Event[] { a, b }, pairs.get(0));
+        assertArrayEquals(new Event[] { a, c }, pairs.get(1));
+    }
+
+    @Test
+    void reschedule_viaTaskList_keepsScheduleInSync() throws ButlerException {
+        TaskList list = new TaskList();
+        Event a = event("a", 9, 10);
+        Event b = event("b", 14, 15);
+        list.add(a);
+        list.add(b);
+        assertTrue(list.conflictsWith(b).isEmpty());
+
+        list.reschedule(1, "/from 2025-11-01 0930 /to 2025-11-01 1030");
+
+        assertEquals(List.of(a), list.conflictsWith(b));
+    }
+}
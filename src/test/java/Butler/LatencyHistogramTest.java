@@ -0,0 +1,65 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile_uniformValues_withinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1_000);
+        }
+
+        assertEquals(100_000, h.count());
+        assertEquals(100_000_000, h.max());
+        assertEquals(50_000_000, h.percentile(50), 50_000_000 * 0.07);
+        assertEquals(99_000_000, h.percentile(99), 99_000_000 * 0.07);
+        assertEquals(h.max(), h.percentile(100));
+    }
+
+    @Test
+    void bucketOf_everyValue_fallsWithinItsBucketBounds() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long v = (rnd.nextLong() >>> 1) >>> rnd.nextInt(63);
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(v <= LatencyHistogram.upperBoundOf(b), "value " + v);
+            if (b > 0) {
+                assertTrue(v > LatencyHistogram.upperBoundOf(b - 1), "value " + v);
+            }
+        }
+    }
+
+    @Test
+    void record_concurrentThreads_countsEveryValue() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    h.record(base * 1_000 + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(200_000, h.count());
+        assertEquals(3_000 + 49_999, h.max());
+    }
+
+    @Test
+    void percentile_empty_returnsZero() {
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+}
@@ -68,5 +68,30 @@ class ParserTest {
         ButlerException be = assertThrows(ButlerException.class, ex);
         assertTrue(be.getMessage().contains("yyyy-MM-dd HHmm") || be.getMessage().contains("yyyy-MM-ddTHH:mm"));
     }
-}
 
+    @Test
+    void parseLocalDate_invalidDayOfMonth_throwsButlerException() {
+        assertThrows(ButlerException.class, () -> Parser.parseLocalDate("2019-02-29"));
+        assertThrows(ButlerException.class, () -> Parser.parseLocalDate("2019-13-01"));
+    }
+
+    @Test
+    void parseLocalDate_leapDay_returnsDateObject() throws ButlerException {
+        assertEquals(LocalDate.of(2020, 2, 29), Parser.parseLocalDate("2020-02-29"));
+    }
+
+    @Test
+    void tryParseLocalDateTime_isoWithSecondsAndFraction_returnsDateTime() {
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0, 5, 120_000_000),
+                Parser.tryParseLocalDateTime("2019-12-02T18:00:05.12"));
+    }
+
+    @Test
+    void tryParseLocalDateTime_outOfRangeOrMalformed_returnsNull() {
+        assertNull(Parser.tryParseLocalDateTime("2019-12-02 2400"));
+        assertNull(Parser.tryParseLocalDateTime("2019-12-02 12:60"));
+        assertNull(Parser.tryParseLocalDateTime("2019-12-02T1800"));
+        assertNull(Parser.tryParseLocalDateTime("2019-12-02 18:00x"));
+        assertNull(Parser.tryParseLocalDateTime("2019-12-02"));
+    }
+}
@@ -0,0 +1,112 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductivityStatsTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 12); // a Wednesday
+
+    @TempDir
+    Path dir;
+
+    private static Todo doneAt(String description, LocalDateTime at) {
+        Todo t = new Todo(description);
+        t.markDoneAt(at);
+        return t;
+    }
+
+    @Test
+    void completed_markUnmarkDelete_countsFollowTheList() {
+        TaskList tasks = new TaskList();
+        ProductivityStats stats = new ProductivityStats();
+        tasks.add(doneAt("monday", LocalDateTime.of(2025, 3, 10, 9, 0)));
+        tasks.add(doneAt("last month", LocalDateTime.of(2025, 2, 28, 23, 59)));
+        tasks.add(new Todo("open"));
+        tasks.addListener(stats);
+
+        assertEquals(1, stats.completed(ProductivityStats.Period.WEEK, TODAY));
+        assertEquals(1, stats.completed(ProductivityStats.Period.MONTH, TODAY));
+        assertEquals(1, stats.completed(ProductivityStats.Period.DAY, LocalDate.of(2025, 3, 10)));
+
+        tasks.mark(2);
+        LocalDate now = LocalDate.now();
+        assertEquals(1, stats.completed(ProductivityStats.Period.DAY, now));
+        tasks.unmark(2);
+        assertEquals(0, stats.completed(ProductivityStats.Period.DAY, now));
+
+        tasks.remove(0);
+        assertEquals(0, stats.completed(ProductivityStats.Period.WEEK, TODAY));
+        assertEquals(1, stats.completed(ProductivityStats.Period.MONTH, LocalDate.of(2025, 2, 1)));
+        Todo unknown = new Todo("done long ago, time unknown");
+        unknown.markDoneAt(null);
+        tasks.add(unknown);
+        assertEquals(0, stats.completed(ProductivityStats.Period.DAY, now));
+    }
+
+    @Test
+    void missed_lateOpenAndFutureDeadlines_countedAsOfToday() throws Exception {
+        TaskList tasks = new TaskList();
+        ProductivityStats stats = new ProductivityStats();
+        tasks.addListener(stats);
+        Deadline late = new Deadline("late", LocalDate.of(2025, 1, 10));
+        late.markDoneAt(LocalDateTime.of(2025, 1, 11, 8, 0));
+        Deadline onTime = new Deadline("on time", LocalDate.of(2025, 1, 10));
+        onTime.markDoneAt(LocalDateTime.of(2025, 1, 10, 23, 0));
+        tasks.addAll(List.of(late, onTime,
+                new Deadline("open in january", LocalDate.of(2025, 1, 20)),
+                new Deadline("open, passed", LocalDate.of(2025, 3, 11)),
+                new Deadline("open, due today", TODAY),
+                new Deadline("open, next month", LocalDate.of(2025, 4, 1))));
+
+        assertEquals(2, stats.missed(YearMonth.of(2025, 1), TODAY));
+        assertEquals(1, stats.missed(YearMonth.of(2025, 3), TODAY));
+        assertEquals(0, stats.missed(YearMonth.of(2025, 4), TODAY));
+
+        tasks.mark(3); // done now, after its date: still missed, but no longer open
+        assertEquals(1, stats.missed(YearMonth.of(2025, 3), TODAY));
+        tasks.unmark(4);
+        tasks.remove(4);
+        assertEquals(1, stats.missed(YearMonth.of(2025, 3), TODAY.plusDays(1)));
+        tasks.reschedule(2, "/by 2025-02-03");
+        assertEquals(1, stats.missed(YearMonth.of(2025, 1), TODAY));
+        assertEquals(1, stats.missed(YearMonth.of(2025, 2), TODAY));
+    }
+
+    @Test
+    void parseLineToTask_completionTime_readBackAndKeptOutOfDescription() {
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        Task t = storage.parseLineToTask("D|1|return book|2019-06-06|@2019-06-07T10:15:30");
+        assertEquals(LocalDateTime.of(2019, 6, 7, 10, 15, 30), t.getDoneAt());
+        assertEquals("D|1|return book|2019-06-06|@2019-06-07T10:15:30", t.serialize());
+
+        Task legacy = storage.parseLineToTask("T|1|@home");
+        assertEquals("@home", legacy.getDescription());
+        assertTrue(legacy.isDone());
+        assertNull(legacy.getDoneAt());
+    }
+
+    @Test
+    void getResponse_report_countsTaskMarkedJustNow() {
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+        butler.getResponse("todo read book");
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        String week = " week of " + Task.DISPLAY_DATE.format(monday) + ": ";
+
+        assertTrue(butler.getResponse("report").contains(week + "0"));
+        butler.getResponse("mark 1");
+        String report = butler.getResponse("report");
+        assertTrue(report.startsWith("Tasks completed per week:\n" + week + "1\n"), report);
+        assertTrue(report.contains("Deadlines missed per month:"), report);
+        assertTrue(butler.getResponse("report month").split("\n")[1].endsWith(": 1"));
+        assertTrue(butler.getResponse("report year").startsWith("⚠"));
+    }
+}
@@ -0,0 +1,62 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderServiceTest {
+    private static final LocalDate IN_TEN_DAYS = LocalDate.now().plusDays(10);
+
+    private static TaskList listWithReminders(ReminderService reminders) {
+        TaskList tasks = new TaskList();
+        tasks.add(new Deadline("essay", IN_TEN_DAYS));
+        tasks.add(new Todo("no date, no reminder"));
+        LocalDateTime start = IN_TEN_DAYS.atTime(9, 0);
+        tasks.add(new Event("talk", start, start.plusHours(1)));
+        tasks.addListener(reminders);
+        return tasks;
+    }
+
+    @Test
+    void markAndUnmark_pendingRemindersCancelledThenRearmed() {
+        ReminderService reminders = new ReminderService();
+        TaskList tasks = listWithReminders(reminders);
+        assertEquals(4, reminders.pending()); // a day and an hour ahead of each dated task
+
+        tasks.mark(0);
+        assertEquals(2, reminders.pending());
+        tasks.mark(1);
+        assertEquals(2, reminders.pending());
+        tasks.unmark(0);
+        assertEquals(4, reminders.pending());
+    }
+
+    @Test
+    void delete_pendingRemindersCancelled() {
+        ReminderService reminders = new ReminderService();
+        TaskList tasks = listWithReminders(reminders);
+
+        tasks.remove(2);
+        assertEquals(2, reminders.pending());
+        tasks.remove(0);
+        assertEquals(0, reminders.pending());
+    }
+
+    @Test
+    void reschedule_remindersMovedOrDroppedWithTheDate() throws Exception {
+        ReminderService reminders = new ReminderService();
+        TaskList tasks = listWithReminders(reminders);
+
+        // Starting in three hours: the day-ahead reminder would be in the past, so only the hour-ahead one stays.
+        LocalDateTime soon = LocalDateTime.now().plusHours(3).withSecond(0).withNano(0);
+        tasks.reschedule(2, "/from " + soon + " /to " + soon.plusHours(1));
+        assertEquals(3, reminders.pending());
+        tasks.reschedule(0, "/by " + LocalDate.now().minusDays(1));
+        assertEquals(1, reminders.pending());
+        tasks.reschedule(0, "/by " + IN_TEN_DAYS.plusDays(5));
+        assertEquals(3, reminders.pending());
+    }
+}
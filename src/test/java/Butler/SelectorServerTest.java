@@ -0,0 +1,102 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelectorServerTest {
+
+    @TempDir
+    Path dir;
+
+    /** Reads one response: every line up to the terminating empty line. */
+    private static String readResponse(BufferedReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    private static Socket connect(SocketAddress address) throws IOException {
+        Socket s = new Socket();
+        s.connect(address);
+        return s;
+    }
+
+    @Test
+    void pipelinedCommands_answeredInOrder_byeClosesConnection() throws Exception {
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+        try (SelectorServer server = new SelectorServer(butler, 0).start();
+             Socket s = connect(server.address())) {
+            Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            out.write("todo read café book\r\nlist\nfrobnicate\nbye\nlist\n");
+            out.flush();
+
+            assertTrue(readResponse(in).startsWith("Got it. I've added this task:"));
+            assertEquals("Here are the tasks in your list:\n 1.[T][ ] read café book", readResponse(in));
+            assertEquals("⚠ Sorry, I don't recognize that command.", readResponse(in));
+            assertEquals("Bye. Hope to see you again soon!", readResponse(in));
+            assertNull(in.readLine(), "connection should be closed after bye");
+        }
+    }
+
+    @Test
+    void longPipeline_everyCommandAnswered_savedWithoutLoss() throws Exception {
+        int commands = 20_000;
+        Path file = dir.resolve("tasks.txt");
+        Butler butler = new Butler(file.toString());
+        try (SelectorServer server = new SelectorServer(butler, 0).start();
+             Socket s = connect(server.address())) {
+            Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < commands; i++) {
+                        out.write("todo item " + i + "\n");
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            for (int i = 0; i < commands; i++) {
+                String response = readResponse(in);
+                assertTrue(response.endsWith("Now you have " + (i + 1) + " tasks in the list."), response);
+            }
+            writer.join();
+            // Each batch is saved before its responses are sent.
+            assertEquals(commands, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+        }
+    }
+
+    @Test
+    void inBatch_autoSaveOn_savesOnceAtEnd() {
+        Path file = dir.resolve("tasks.txt");
+        Butler butler = new Butler(file.toString());
+        butler.inBatch(() -> {
+            butler.getResponse("todo read book");
+            butler.getResponse("todo buy milk");
+            assertFalse(Files.exists(file), "nothing should be saved inside the batch");
+        });
+        assertTrue(Files.exists(file));
+    }
+}
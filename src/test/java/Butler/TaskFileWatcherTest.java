@@ -0,0 +1,123 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskFileWatcherTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<String> serialized(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks) {
+            lines.add(t.serialize());
+        }
+        return lines;
+    }
+
+    /** Writes the file as another program would, making sure its timestamp moves on. */
+    private static void writeExternally(Path file, String content, StandardOpenOption... options) throws Exception {
+        long before = Files.getLastModifiedTime(file).toMillis();
+        Files.writeString(file, content, StandardCharsets.UTF_8, options);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(before + 1000));
+    }
+
+    @Test
+    void readChanges_ownSave_noChange() {
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        storage.load();
+        storage.save(List.of(new Todo("read book")));
+        assertNull(storage.readChanges());
+    }
+
+    @Test
+    void readChanges_appendedLines_onlyNewCompleteLinesRead() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.save(List.of(new Todo("read book")));
+
+        writeExternally(file, "T|0|buy milk\nD|1|return book|2019-06-06\nT|0|half a li",
+                StandardOpenOption.APPEND);
+        Storage.Change c = storage.readChanges();
+        assertEquals(1, c.from);
+        assertEquals(0, c.removed);
+        assertEquals(List.of("T|0|buy milk", "D|1|return book|2019-06-06"), serialized(c.added));
+
+        writeExternally(file, "ne\n", StandardOpenOption.APPEND);
+        c = storage.readChanges();
+        assertEquals(3, c.from);
+        assertEquals(List.of("T|0|half a line"), serialized(c.added));
+    }
+
+    @Test
+    void readChanges_rewrittenMiddle_onlyChangedRangeReplaced() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            if (i == 4) {
+                sb.append("T|1|task 4 done\nT|0|inserted\n");
+            } else if (i != 6) {
+                sb.append("T|0|task ").append(i).append('\n');
+            }
+        }
+        writeExternally(file, sb.toString());
+        Storage.Change c = storage.readChanges();
+
+        assertEquals(4, c.from);
+        assertEquals(3, c.removed); // tasks 4, 5 and 6
+        assertEquals(List.of("T|1|task 4 done", "T|0|inserted", "T|0|task 5"), serialized(c.added));
+        assertNull(storage.readChanges());
+    }
+
+    @Test
+    void readChanges_truncatedFile_tailRemoved() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.save(List.of(new Todo("a"), new Todo("b"), new Todo("c")));
+
+        writeExternally(file, "T|0|a\n");
+        Storage.Change c = storage.readChanges();
+        assertEquals(1, c.from);
+        assertEquals(2, c.removed);
+        assertTrue(c.added.isEmpty());
+    }
+
+    @Test
+    void startWatching_externalAppend_takenInBeforeNextSave() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Butler butler = new Butler(file.toString());
+        butler.getResponse("todo read book");
+        BlockingQueue<String> notices = new LinkedBlockingQueue<>();
+        butler.startWatching(notices::add);
+
+        Files.writeString(file, "T|0|buy milk\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        String notice = notices.poll(20, TimeUnit.SECONDS);
+        assertNotNull(notice, "the change should be noticed");
+        assertTrue(notice.endsWith("Now you have 2 tasks in the list."), notice);
+
+        butler.getResponse("todo call mum");
+        assertEquals(List.of("T|0|read book", "T|0|buy milk", "T|0|call mum"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+}
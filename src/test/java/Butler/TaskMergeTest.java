@@ -0,0 +1,196 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskMergeTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<Task> todos(String... descriptions) {
+        List<Task> tasks = new ArrayList<>();
+        for (String d : descriptions) {
+            tasks.add(new Todo(d));
+        }
+        return tasks;
+    }
+
+    private static long[] hashes(List<Task> tasks) {
+        long[] hashes = new long[tasks.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = tasks.get(i).serialize().hashCode();
+        }
+        return hashes;
+    }
+
+    private static List<String> serialized(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks) {
+            lines.add(t.serialize());
+        }
+        return lines;
+    }
+
+    @Test
+    void merge_bothSidesChanged_keepsEveryChangeInPlace() {
+        List<Task> base = todos("a", "b", "c");
+        List<Task> ours = todos("a", "b", "c", "d");
+        ours.get(1).markDoneAt(null);
+        List<Task> theirs = todos("b", "c", "e");
+
+        List<Task> merged = TaskMerge.merge(hashes(base), base.size(), ours, hashes(ours), theirs, hashes(theirs)).tasks;
+
+        assertEquals(List.of("T|1|b", "T|0|c", "T|0|d", "T|0|e"), serialized(merged));
+    }
+
+    @Test
+    void merge_duplicateLines_countedAsMultiset() {
+        List<Task> base = todos("x", "x");
+        List<Task> ours = todos("x");
+        List<Task> theirs = todos("x", "x", "x");
+
+        List<Task> merged = TaskMerge.merge(hashes(base), base.size(), ours, hashes(ours), theirs, hashes(theirs)).tasks;
+
+        assertEquals(List.of("T|0|x", "T|0|x"), serialized(merged));
+    }
+
+    @Test
+    void save_sameEditInTwoStorages_keptOnce() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|a\nT|0|buy milk\nT|0|c\n", StandardCharsets.UTF_8);
+        Storage first = new Storage(file.toString());
+        Storage second = new Storage(file.toString());
+        List<Task> mine = first.load();
+        List<Task> yours = second.load();
+
+        mine.get(1).markDoneAt(null);
+        mine.get(0).setTags(List.of("w"));
+        assertNull(first.save(mine));
+        yours.get(1).markDoneAt(null);
+        yours.get(0).setTags(List.of("w"));
+        yours.add(new Todo("d"));
+        List<Task> merged = second.save(yours);
+
+        assertEquals(List.of("T|0|a|#w", "T|1|buy milk", "T|0|c", "T|0|d"), serialized(merged));
+        assertTrue(second.takeMergeConflicts().isEmpty());
+        assertEquals(serialized(merged), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void save_differentEditsToOneTask_keepsOursOnceAndReportsIt() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|a\nT|0|b\nT|0|c\n", StandardCharsets.UTF_8);
+        Storage first = new Storage(file.toString());
+        Storage second = new Storage(file.toString());
+        List<Task> mine = first.load();
+        List<Task> yours = second.load();
+
+        mine.get(1).setTags(List.of("theirs"));
+        mine.remove(2);
+        first.save(mine);
+        yours.get(1).markDoneAt(null);
+        yours.get(2).setTags(List.of("kept"));
+        List<Task> merged = second.save(yours);
+
+        // b: both edited, ours wins; c: deleted there but edited here, so the edit stays.
+        assertEquals(List.of("T|0|a", "T|1|b", "T|0|c|#kept"), serialized(merged));
+        assertEquals(List.of("T|1|b", "T|0|c|#kept"), serialized(second.takeMergeConflicts()));
+        assertTrue(second.takeMergeConflicts().isEmpty());
+    }
+
+    @Test
+    void align_insertionsDeletionsAndInPlaceEdits_pairedWithTheirBaseTasks() {
+        long[] base = {1, 2, 3, 4, 5, 6};
+        long[] side = {1, 9, 3, 7, 8, 5};
+        // 2 -> 9 edited in place, 4 -> 7 edited, 8 added, 6 deleted.
+        assertArrayEquals(new int[] {0, 1, 2, 3, -1, 4}, TaskMerge.align(base, base.length, side, side.length));
+    }
+
+    @Test
+    void getResponse_twoButlersOnOneFile_neitherLosesTheOthersChanges() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|read book\nT|0|buy milk\n", StandardCharsets.UTF_8);
+        Butler gui = new Butler(file.toString());
+        Butler script = new Butler(file.toString());
+
+        script.getResponse("todo call mum");
+        String reply = gui.getResponse("mark 2");
+
+        assertTrue(reply.contains("[X] buy milk"), reply);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals("T|0|read book", lines.get(0));
+        assertTrue(lines.get(1).startsWith("T|1|buy milk|@"), lines.get(1));
+        assertEquals("T|0|call mum", lines.get(2));
+        assertTrue(gui.getResponse("list").contains("3.[T][ ] call mum"));
+
+        script.getResponse("delete 1");
+        assertEquals(List.of(lines.get(1), "T|0|call mum"), Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertEquals(0, Files.list(dir).filter(p -> p.toString().endsWith(".tmp")).count());
+    }
+
+    @Test
+    void getResponse_twoButlersMarkTheSameTask_listKeepsOneCopy() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|read book\nT|0|buy milk\n", StandardCharsets.UTF_8);
+        Butler gui = new Butler(file.toString());
+        Butler script = new Butler(file.toString());
+
+        script.getResponse("mark 2");
+        String reply = gui.getResponse("mark 2");
+
+        assertFalse(reply.contains("Heads up"), reply);
+        assertEquals(2, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+        assertFalse(gui.getResponse("list").contains("3."));
+        script.getResponse("tag 1 #w");
+        assertTrue(gui.getResponse("tag 1 #w").endsWith("read book #w"));
+        assertEquals("T|0|read book|#w", Files.readAllLines(file, StandardCharsets.UTF_8).get(0));
+
+        script.getResponse("tag 1 #x");
+        reply = gui.getResponse("untag 1 #w");
+        assertTrue(reply.endsWith("Heads up! Another program changed these tasks at the same time; I kept:"
+                + "\n   [T][ ] read book"), reply);
+    }
+
+    @Test
+    void inBatch_conflictOnSave_notedForTheBatchOnly() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|read book\n", StandardCharsets.UTF_8);
+        Butler server = new Butler(file.toString());
+        Butler script = new Butler(file.toString());
+
+        script.getResponse("tag 1 #x");
+        String[] reply = new String[1];
+        String note = server.inBatch(() -> reply[0] = server.getResponse("tag 1 #w"));
+
+        assertFalse(reply[0].contains("Heads up"), reply[0]);
+        assertTrue(note.startsWith("\nHeads up! Another program changed these tasks"), note);
+        assertFalse(server.getResponse("list").contains("Heads up"));
+        assertEquals("", server.inBatch(() -> server.getResponse("list")));
+    }
+
+    @Test
+    void getResponse_fileSpacedByHand_otherProgramsEditsKept() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T | 0 | read book\nT | 0 | buy milk\n", StandardCharsets.UTF_8);
+        Butler gui = new Butler(file.toString());
+        Butler script = new Butler(file.toString());
+
+        script.getResponse("mark 2");
+        String reply = gui.getResponse("tag 1 #w");
+
+        assertFalse(reply.contains("Heads up"), reply);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("T|0|read book|#w", lines.get(0));
+        assertTrue(lines.get(1).startsWith("T|1|buy milk"), lines.get(1));
+    }
+}
@@ -0,0 +1,144 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskOrderTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<Task> inOrder(TaskOrder order) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < order.size(); i++) {
+            tasks.add(order.get(i));
+        }
+        return tasks;
+    }
+
+    private static LocalDateTime dateOf(Task t) {
+        if (t instanceof Deadline) {
+            return ((Deadline) t).getBy().atStartOfDay();
+        }
+        return t instanceof Event ? ((Event) t).getFrom() : LocalDateTime.MAX;
+    }
+
+    @Test
+    void get_tiedKeys_keepOrderTasksEnteredIn() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("b"));
+        tasks.add(new Deadline("Beta", LocalDate.of(2025, 1, 2)));
+        tasks.add(new Todo("a"));
+        tasks.add(new Event("alpha", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0)));
+        tasks.add(new Todo("beta"));
+        TaskOrder byDate = new TaskOrder(TaskOrder.Key.DATE);
+        TaskOrder byDescription = new TaskOrder(TaskOrder.Key.DESCRIPTION);
+        tasks.addListener(byDate);
+        tasks.addListener(byDescription);
+
+        assertEquals(List.of(tasks.get(3), tasks.get(1), tasks.get(0), tasks.get(2), tasks.get(4)), inOrder(byDate));
+        assertEquals(List.of(tasks.get(2), tasks.get(3), tasks.get(0), tasks.get(1), tasks.get(4)),
+                inOrder(byDescription));
+    }
+
+    @Test
+    void get_tasksChangedInPlace_keepTheirPlaceAmongTies() throws Exception {
+        TaskList tasks = new TaskList();
+        for (String d : new String[] {"a", "b", "c", "d"}) {
+            tasks.add(new Deadline(d, LocalDate.of(2025, 1, 1)));
+        }
+        TaskOrder byStatus = new TaskOrder(TaskOrder.Key.STATUS);
+        TaskOrder byDate = new TaskOrder(TaskOrder.Key.DATE);
+        tasks.addListener(byStatus);
+        tasks.addListener(byDate);
+        inOrder(byStatus);
+
+        tasks.mark(2);
+        tasks.mark(0);
+        tasks.unmark(2);
+        tasks.retag(1, List.of("x"));
+        tasks.reschedule(3, "/by 2025-01-01");
+
+        assertEquals(List.of(tasks.get(1), tasks.get(2), tasks.get(3), tasks.get(0)), inOrder(byStatus));
+        assertEquals(tasks.all(), inOrder(byDate));
+    }
+
+    @Test
+    void merge_randomChanges_matchesSortingTheWholeList() throws Exception {
+        Random random = new Random(7);
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 3000; i++) {
+            LocalDate day = LocalDate.of(2025, 1, 1).plusDays(random.nextInt(60));
+            tasks.add(random.nextBoolean() ? new Todo("todo " + i) : new Deadline("deadline " + i, day));
+        }
+        TaskOrder byDate = new TaskOrder(TaskOrder.Key.DATE);
+        TaskOrder byStatus = new TaskOrder(TaskOrder.Key.STATUS);
+        tasks.addListener(byDate);
+        tasks.addListener(byStatus);
+        inOrder(byDate);
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 500; i++) {
+                int idx = random.nextInt(tasks.size());
+                switch (random.nextInt(4)) {
+                case 0:
+                    tasks.mark(idx);
+                    break;
+                case 1:
+                    tasks.remove(idx);
+                    break;
+                case 2:
+                    tasks.add(new Deadline("new " + i, LocalDate.of(2025, 3, 1).minusDays(random.nextInt(90))));
+                    break;
+                default:
+                    if (tasks.get(idx) instanceof Deadline) {
+                        tasks.reschedule(idx, "/by 2025-02-" + (10 + random.nextInt(10)));
+                    }
+                }
+            }
+            List<Task> expected = new ArrayList<>(tasks.all());
+            expected.sort(Comparator.comparing(TaskOrderTest::dateOf));
+            List<Task> actual = inOrder(byDate);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(dateOf(expected.get(i)), dateOf(actual.get(i)));
+            }
+            List<Task> byDone = inOrder(byStatus);
+            assertTrue(byDone.containsAll(tasks.all()));
+            for (int i = 1; i < byDone.size(); i++) {
+                assertFalse(byDone.get(i - 1).isDone() && !byDone.get(i).isDone());
+            }
+        }
+    }
+
+    @Test
+    void getResponse_sort_showsListNumbersAndFollowsChanges() {
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+        butler.getResponse("todo read book");
+        butler.getResponse("deadline essay /by 2025-05-01");
+        butler.getResponse("event talk /from 2025-04-01 1400 /to 2025-04-01 1500");
+
+        String sorted = butler.getResponse("sort by:date");
+        assertTrue(sorted.startsWith("Here are the tasks in your list, by date:\n 3.[E]"), sorted);
+        assertTrue(sorted.endsWith(" 1.[T][ ] read book"), sorted);
+
+        butler.getResponse("delete 3");
+        butler.getResponse("reschedule 2 /by 2025-01-01");
+        butler.getResponse("todo another");
+        sorted = butler.getResponse("sort by:date");
+        assertTrue(sorted.startsWith("Here are the tasks in your list, by date:\n 2.[D]"), sorted);
+        assertTrue(sorted.endsWith(" 1.[T][ ] read book\n 3.[T][ ] another"), sorted);
+        assertTrue(butler.getResponse("sort description").contains(" 3.[T][ ] another\n 2.[D]"));
+        assertTrue(butler.getResponse("sort by:size").startsWith("⚠"));
+    }
+}
@@ -0,0 +1,107 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTagsTest {
+
+    @TempDir
+    Path dir;
+
+    private static Todo tagged(String description, String... tags) {
+        Todo t = new Todo(description);
+        t.setTags(List.of(tags));
+        return t;
+    }
+
+    @Test
+    void findByTags_andOrAndExclusion_returnsMatchesInListOrder() {
+        TaskList tasks = new TaskList();
+        tasks.add(tagged("report", "work", "urgent"));
+        tasks.add(tagged("garden", "home"));
+        tasks.add(tagged("slides", "work"));
+        tasks.add(tagged("taxes", "home", "urgent"));
+        tasks.add(new Todo("nap"));
+
+        assertEquals(List.of(tasks.get(0)), tasks.findByTags(TagQuery.parse("#work #urgent")));
+        assertEquals(List.of(tasks.get(0), tasks.get(3)), tasks.findByTags(TagQuery.parse("#WORK|#home #urgent")));
+        assertEquals(List.of(tasks.get(2), tasks.get(4)), tasks.findByTags(TagQuery.parse("-#urgent -#home")));
+        assertEquals(List.of(tasks.get(2)), tasks.findByTags(TagQuery.parse("#work slides")));
+        assertTrue(tasks.findByTags(TagQuery.parse("#nothing")).isEmpty());
+    }
+
+    @Test
+    void removeAndAdd_freedIdReused_indexFollowsTheTasks() {
+        TaskList tasks = new TaskList();
+        tasks.add(tagged("a", "x"));
+        tasks.add(tagged("b", "x"));
+        tasks.add(tagged("c", "y"));
+        tasks.remove(0);
+        tasks.add(tagged("d", "y"));
+        tasks.retag(0, List.of("y"));
+
+        assertEquals(Map.of("y", 3), tasks.tagCounts());
+        assertEquals(List.of(tasks.get(0), tasks.get(1), tasks.get(2)), tasks.findByTags(TagQuery.parse("#y")));
+        assertTrue(tasks.findByTags(TagQuery.parse("#x")).isEmpty());
+    }
+
+    @Test
+    void findByTags_tasksShiftedByRemoveAndReplace_comeBackInListOrder() {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 6; i++) {
+            tasks.add(tagged("task " + i, i % 2 == 0 ? "even" : "odd"));
+        }
+        tasks.remove(0);
+        tasks.replace(1, 2, List.of(tagged("new a", "odd"), tagged("new b", "even"), tagged("new c", "odd")));
+        tasks.add(tagged("last", "even"));
+
+        assertEquals(List.of(tasks.get(0), tasks.get(1), tasks.get(3), tasks.get(5)),
+                tasks.findByTags(TagQuery.parse("#odd")));
+        assertEquals(List.of(tasks.get(2), tasks.get(4), tasks.get(6)), tasks.findByTags(TagQuery.parse("#even")));
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(i, tasks.positionOf(tasks.get(i)));
+        }
+    }
+
+    @Test
+    void parseLineToTask_tagsField_roundTripsWithCompletionTime() {
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        String line = "D|1|return book|2019-06-06|#library #urgent|@2019-06-07T10:15:30";
+        Task t = storage.parseLineToTask(line);
+        assertEquals("return book", t.getDescription());
+        assertEquals(List.of("library", "urgent"), t.getTags());
+        assertEquals(line, t.serialize());
+        assertEquals("T|0|#hashtag in text", storage.parseLineToTask("T|0|#hashtag in text").serialize());
+    }
+
+    @Test
+    void getResponse_tagCommands_filterListAndCount() {
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+        butler.getResponse("todo read book #fun #Reading");
+        butler.getResponse("t buy milk");
+        butler.getResponse("deadline essay #school /by 2025-05-01");
+
+        String reply = butler.getResponse("tag 2 #errands #fun");
+        assertTrue(reply.contains("buy milk #errands #fun"), reply);
+        String list = butler.getResponse("list -#fun");
+        assertTrue(list.contains(" 3.[D][ ] essay #school"), list);
+        assertFalse(list.contains("buy milk"), list);
+        String found = butler.getResponse("find #fun|#school book");
+        assertTrue(found.contains("read book #fun #reading"), found);
+        assertFalse(found.contains("essay"), found);
+
+        butler.getResponse("untag 1 #fun");
+        assertEquals("Here are your tags:\n #errands: 1 task\n #fun: 1 task\n #reading: 1 task\n #school: 1 task",
+                butler.getResponse("tags"));
+        assertTrue(butler.getResponse("tag 2 errands").startsWith("⚠"));
+
+        Butler reloaded = new Butler(dir.resolve("tasks.txt").toString());
+        assertTrue(reloaded.getResponse("list #errands").contains(" 2.[T][ ] buy milk #errands #fun"));
+    }
+}
@@ -0,0 +1,142 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTransferTest {
+
+    @TempDir
+    Path dir;
+
+    private static TaskList sampleTasks() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read \"War, and Peace\""));
+        Deadline d = new Deadline("return book; today", LocalDate.of(2019, 6, 6));
+        d.mark();
+        d.setTags(List.of("library", "urgent"));
+        tasks.add(d);
+        tasks.add(new Event("project meeting about the very long and winding quarterly roadmap review",
+                LocalDateTime.of(2019, 8, 6, 14, 0), LocalDateTime.of(2019, 8, 6, 16, 0)));
+        return tasks;
+    }
+
+    private static List<String> serialized(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks) {
+            lines.add(t.serialize());
+        }
+        return lines;
+    }
+
+    @Test
+    void exportThenImport_csvAndIcs_roundTripsEveryTask() throws Exception {
+        TaskList tasks = sampleTasks();
+        for (String name : new String[] {"tasks.csv", "tasks.ics"}) {
+            Path file = dir.resolve(name);
+            assertEquals(3, TaskTransfer.exportTasks(tasks, file));
+
+            TaskList back = new TaskList();
+            TaskTransfer.ImportResult r = TaskTransfer.importTasks(file, back::addAll);
+            assertEquals(3, r.imported, name);
+            assertEquals(0, r.skipped, name);
+            assertEquals(serialized(tasks.all()), serialized(back.all()), name);
+        }
+    }
+
+    @Test
+    void exportTasks_ics_linesFoldedAtSeventyFiveOctets() throws Exception {
+        Path file = dir.resolve("tasks.ics");
+        TaskTransfer.exportTasks(sampleTasks(), file);
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        for (String line : text.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        assertTrue(text.contains("SUMMARY:return book\\; today"));
+        assertTrue(text.contains("\r\n "), "long summary should be folded");
+    }
+
+    @Test
+    void importTasks_invalidCsvRecords_skippedWithLineNumbers() throws Exception {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "type,done,description,start,end\n"
+                + "T,0,read book,,\n"
+                + "D,0,return book,2019-13-01,\n"
+                + "E,1,\"meeting\nwith notes\",2019-08-06 1400,2019-08-06 1600\n"
+                + "E,0,backwards,2019-08-06 1600,2019-08-06 1400\n"
+                + "X,0,what,,\n"
+                + "E,true,party,2019-08-06T18:00,2019-08-06T23:00\n", StandardCharsets.UTF_8);
+
+        TaskList tasks = new TaskList();
+        TaskTransfer.ImportResult r = TaskTransfer.importTasks(file, tasks::addAll);
+
+        assertEquals(2, r.imported);
+        assertEquals(4, r.skipped);
+        assertTrue(r.errors.get(0).startsWith("line 3: "), r.errors.get(0));
+        assertTrue(r.errors.get(1).startsWith("line 4: "), r.errors.get(1));
+        assertTrue(r.errors.get(2).startsWith("line 6: "), r.errors.get(2));
+        assertEquals("line 7: The type must be T, D or E.", r.errors.get(3));
+        assertEquals("E|1|party|2019-08-06T18:00|2019-08-06T23:00", tasks.get(1).serialize());
+    }
+
+    @Test
+    void importTasks_foreignIcs_mapsComponentsAndIgnoresNestedOnes() throws Exception {
+        Path file = dir.resolve("calendar.ics");
+        Files.writeString(file, "BEGIN:VCALENDAR\r\n"
+                + "BEGIN:VTIMEZONE\r\nTZID:Europe/Berlin\r\nEND:VTIMEZONE\r\n"
+                + "BEGIN:VTODO\r\nSUMMARY:buy\r\n  milk\r\nSTATUS:COMPLETED\r\nEND:VTODO\r\n"
+                + "BEGIN:VTODO\r\nSUMMARY:file taxes\r\nDUE;VALUE=DATE:20250430\r\n"
+                + "BEGIN:VALARM\r\nSUMMARY:not this one\r\nEND:VALARM\r\nEND:VTODO\r\n"
+                + "BEGIN:VEVENT\r\nSUMMARY;LANGUAGE=en:lunch\r\nDTSTART;TZID=\"Europe/Berlin\":20250501T120000\r\n"
+                + "DTEND;TZID=\"Europe/Berlin\":20250501T130000\r\nEND:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\nDTSTART:20250501T120000\r\nEND:VEVENT\r\n"
+                + "END:VCALENDAR\r\n", StandardCharsets.UTF_8);
+
+        TaskList tasks = new TaskList();
+        TaskTransfer.ImportResult r = TaskTransfer.importTasks(file, tasks::addAll);
+
+        assertEquals(List.of("T|1|buy milk", "D|0|file taxes|2025-04-30",
+                "E|0|lunch|2025-05-01T12:00|2025-05-01T13:00"), serialized(tasks.all()));
+        assertEquals(List.of("line 22: The description cannot be empty."), r.errors);
+    }
+
+    @Test
+    void importTasks_manyRows_deliveredInChunks() throws Exception {
+        int rows = 3 * TaskTransfer.CHUNK + 5;
+        Path file = dir.resolve("big.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                out.write("D,0,task " + i + ",2025-01-01,\n");
+            }
+        }
+        List<Integer> chunkSizes = new ArrayList<>();
+        TaskTransfer.ImportResult r = TaskTransfer.importTasks(file, chunk -> chunkSizes.add(chunk.size()));
+
+        assertEquals(rows, r.imported);
+        assertEquals(List.of(TaskTransfer.CHUNK, TaskTransfer.CHUNK, TaskTransfer.CHUNK, 5), chunkSizes);
+    }
+
+    @Test
+    void getResponse_importAndExport_savedAndReported() throws Exception {
+        Path csv = dir.resolve("in.csv");
+        Files.writeString(csv, "T,0,read book,,\nT,0,buy milk,,\n", StandardCharsets.UTF_8);
+        Butler butler = new Butler(dir.resolve("tasks.txt").toString());
+
+        assertEquals("Imported 2 tasks from in.csv.\nNow you have 2 tasks in the list.",
+                butler.getResponse("import " + csv));
+        assertEquals(List.of("T|0|read book", "T|0|buy milk"),
+                Files.readAllLines(dir.resolve("tasks.txt"), StandardCharsets.UTF_8));
+        assertEquals("⚠ I can only import and export .csv or .ics files.", butler.getResponse("export out.txt"));
+        assertTrue(butler.getResponse("import " + dir.resolve("missing.csv")).startsWith("⚠ I can't find"));
+    }
+}
@@ -0,0 +1,87 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void getResponse_separateUsers_separateTaskFiles() throws Exception {
+        TenantManager tenants = new TenantManager(dir, 10, 1000, b -> { });
+        tenants.getResponse("alice", "todo read book");
+        tenants.getResponse("bob", "todo buy milk");
+
+        assertEquals("Here are the tasks in your list:\n 1.[T][ ] read book", tenants.getResponse("alice", "list"));
+        assertEquals(List.of("T|0|buy milk"), Files.readAllLines(dir.resolve("bob.txt"), StandardCharsets.UTF_8));
+        assertEquals(2, tenants.misses());
+        assertEquals(1, tenants.hits());
+    }
+
+    @Test
+    void getResponse_overTenantLimit_evictsLeastRecentlyUsedAfterFlushing() throws Exception {
+        TenantManager tenants = new TenantManager(dir, 2, 1000, b -> b.setAutoSave(false));
+        tenants.getResponse("alice", "todo read book");
+        tenants.getResponse("bob", "todo buy milk");
+        tenants.getResponse("alice", "list");
+        tenants.getResponse("carol", "todo call mum");
+
+        assertEquals(2, tenants.loadedCount());
+        assertEquals(1, tenants.evictions());
+        // bob was least recently used, so his unsaved todo was flushed on eviction
+        assertEquals(List.of("T|0|buy milk"), Files.readAllLines(dir.resolve("bob.txt"), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(dir.resolve("alice.txt")));
+
+        assertEquals("Here are the tasks in your list:\n 1.[T][ ] buy milk", tenants.getResponse("bob", "list"));
+        assertEquals(4, tenants.misses());
+    }
+
+    @Test
+    void getResponse_overTaskLimit_evictsUntilWithinLimit() throws Exception {
+        TenantManager tenants = new TenantManager(dir, 10, 3, b -> { });
+        tenants.getResponse("alice", "todo a1");
+        tenants.getResponse("alice", "todo a2");
+        tenants.getResponse("bob", "todo b1");
+        tenants.getResponse("bob", "todo b2");
+
+        assertEquals(1, tenants.loadedCount());
+        assertEquals(1, tenants.evictions());
+    }
+
+    @Test
+    void getResponse_invalidUser_exceptionThrown() {
+        TenantManager tenants = new TenantManager(dir, 10, 1000, b -> { });
+        for (String user : new String[] {"", "../etc", "a b", "x".repeat(65)}) {
+            ButlerException e = assertThrows(ButlerException.class, () -> tenants.getResponse(user, "list"));
+            assertTrue(e.getMessage().startsWith("User names may only use"), e.getMessage());
+        }
+    }
+
+    @Test
+    void getResponse_importExportPaths_confinedToTheUsersFolder() throws Exception {
+        TenantManager tenants = new TenantManager(dir, 10, 1000, b -> { });
+        tenants.getResponse("alice", "todo read book");
+        Files.writeString(dir.resolve("secret.csv"), "T,0,not alice's\n", StandardCharsets.UTF_8);
+
+        assertEquals("Exported 1 tasks to mine.csv.", tenants.getResponse("alice", "export mine.csv"));
+        assertTrue(Files.exists(dir.resolve("transfers").resolve("alice").resolve("mine.csv")));
+        for (String name : new String[] {"../../secret.csv", dir.resolve("secret.csv").toString(),
+                "sub/../../bob/x.csv"}) {
+            assertTrue(tenants.getResponse("alice", "import " + name).startsWith("⚠ Please give a plain file name"),
+                    name);
+            assertTrue(tenants.getResponse("alice", "export " + name).startsWith("⚠ Please give a plain file name"),
+                    name);
+        }
+        assertTrue(tenants.getResponse("bob", "import mine.csv").startsWith("⚠ I can't find the file"));
+        assertTrue(tenants.getResponse("alice", "import mine.csv").startsWith("Imported 1 tasks"));
+    }
+}
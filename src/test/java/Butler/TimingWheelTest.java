@@ -0,0 +1,71 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advanceTo_deadlinesAcrossLevels_fireOnTimeInOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 3, 0);
+        wheel.schedule(5, "level0");
+        wheel.schedule(100, "level1");
+        wheel.schedule(10_000, "level2");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(99, fired::add);
+        assertEquals(List.of("level0"), fired);
+
+        wheel.advanceTo(100, fired::add);
+        assertEquals(List.of("level0", "level1"), fired);
+
+        wheel.advanceTo(9_999, fired::add);
+        assertEquals(2, fired.size());
+        wheel.advanceTo(10_000, fired::add);
+        assertEquals(List.of("level0", "level1", "level2"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void advanceTo_deadlineBeyondHorizon_stillFiresOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 2, 7);
+        wheel.schedule(50_000, "far");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(49_999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(50_000, fired::add);
+        assertEquals(List.of("far"), fired);
+    }
+
+    @Test
+    void cancel_pendingTimeout_neverFires() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 2, 0);
+        TimingWheel.Timeout<String> keep = wheel.schedule(500, "keep");
+        TimingWheel.Timeout<String> drop = wheel.schedule(500, "drop");
+        wheel.cancel(drop);
+        wheel.cancel(drop);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(1_000, fired::add);
+
+        assertEquals(List.of("keep"), fired);
+        assertEquals("keep", keep.payload());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void schedule_pastDeadline_firesOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 2, 1_000);
+        wheel.schedule(10, "late");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(1_001, fired::add);
+
+        assertEquals(List.of("late"), fired);
+    }
+}
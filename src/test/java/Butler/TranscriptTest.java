@@ -0,0 +1,122 @@
+package Butler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptTest {
+
+    @TempDir
+    Path dir;
+
+    private static Message butler(String text) {
+        return new Message(Message.Speaker.BUTLER, text);
+    }
+
+    @Test
+    void get_messagesBeyondBudget_areReadBackFromDisk() throws IOException {
+        Transcript t = new Transcript(dir.resolve("t.log"), 100);
+        for (int i = 0; i < 1000; i++) {
+            t.add(new Message(i % 2 == 0 ? Message.Speaker.USER : Message.Speaker.BUTLER, "message " + i));
+        }
+
+        assertEquals(1000, t.size());
+        assertTrue(t.inMemoryCount() < 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("message " + i, t.get(i).getText());
+            assertEquals(i % 2 == 0 ? Message.Speaker.USER : Message.Speaker.BUTLER, t.get(i).getSpeaker());
+        }
+    }
+
+    @Test
+    void set_spilledAndInMemoryMessages_replacesBoth() throws IOException {
+        Transcript t = new Transcript(dir.resolve("t.log"), 0);
+        for (int i = 0; i < 200; i++) {
+            t.add(butler("m" + i));
+        }
+        t.get(3); // pull into the cache first
+
+        t.set(3, butler("replaced early"));
+        t.set(199, butler("replaced late ✓"));
+
+        assertEquals("replaced early", t.get(3).getText());
+        assertEquals("replaced late ✓", t.get(199).getText());
+        assertEquals("m4", t.get(4).getText());
+    }
+
+    @Test
+    void search_replacedMessages_reportsOnlyLatestVersion() throws IOException {
+        Transcript t = new Transcript(dir.resolve("t.log"), 0);
+        t.add(butler("Working on it..."));
+        t.add(butler("book club"));
+        t.add(butler("read book"));
+        t.set(0, butler("added book"));
+
+        List<String> found = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        t.search("book", (m, idx) -> {
+            found.add(m.getText());
+            indices.add(idx);
+        });
+
+        assertEquals(List.of("book club", "read book", "added book"), found);
+        assertEquals(List.of(1, 2, 0), indices);
+    }
+
+    @Test
+    void add_messagesLargerThanBudget_notKeptInMemory() throws IOException {
+        Transcript t = new Transcript(dir.resolve("t.log"), 1000);
+        String big = "x".repeat(5000);
+        for (int i = 0; i < 20; i++) {
+            t.add(butler(i + big));
+        }
+        assertEquals(0, t.inMemoryCount());
+        t.add(butler("short"));
+        assertEquals(1, t.inMemoryCount());
+
+        assertEquals(7 + big, t.get(7).getText());
+        t.close();
+    }
+
+    @Test
+    void openSession_manyEarlierSessions_keepsOnlyTheNewest() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(dir.resolve("session-2024010" + i + "-120000.log"), "old");
+        }
+        Files.writeString(dir.resolve("notes.txt"), "not a transcript");
+
+        Transcript t = Transcript.openSession(dir, 3, 100);
+        t.add(butler("hello"));
+        t.close();
+
+        assertFalse(Files.exists(dir.resolve("session-20240102-120000.log")));
+        assertTrue(Files.exists(dir.resolve("session-20240103-120000.log")));
+        assertTrue(Files.exists(dir.resolve("session-20240104-120000.log")));
+        assertTrue(Files.exists(dir.resolve("notes.txt")));
+        try (var files = Files.list(dir)) {
+            assertEquals(4, files.count());
+        }
+    }
+
+    @Test
+    void open_unwritableLocation_keepsEverythingInMemory() throws IOException {
+        Path blocker = dir.resolve("file");
+        Files.writeString(blocker, "x");
+        Transcript t = Transcript.open(blocker.resolve("t.log"), 0);
+        for (int i = 0; i < 100; i++) {
+            t.add(butler("m" + i));
+        }
+
+        assertEquals(100, t.inMemoryCount());
+        List<Integer> hits = new ArrayList<>();
+        t.search("m9", (m, idx) -> hits.add(idx));
+        assertEquals(List.of(9, 90, 91, 92, 93, 94, 95, 96, 97, 98, 99), hits);
+    }
+}
@@ -1,26 +1,17 @@
 #!/usr/bin/env bash
 
-# create bin directory if it doesn't exist
-if [ ! -d "../bin" ]
-then
-    mkdir ../bin
-fi
-
-# delete output from previous run
-if [ -e "./ACTUAL.TXT" ]
-then
-    rm ACTUAL.TXT
-fi
-
-# compile the code into the bin folder, terminates if error occurred
-if ! javac -cp ../src/main/java -Xlint:none -d ../bin ../src/main/java/*.java
+# build the runnable jar, terminates if error occurred
+if ! (cd .. && ./gradlew -q shadowJar)
 then
     echo "********** BUILD FAILURE **********"
     exit 1
 fi
 
-# run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
-java -classpath ../bin Duke < input.txt > ACTUAL.TXT
+# delete output and saved tasks from previous run
+rm -f ACTUAL.TXT data/butler.txt
+
+# run the program headlessly, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
+java -jar ../build/libs/Butler.jar --batch input.txt --data data/butler.txt > ACTUAL.TXT
 
 # convert to UNIX format
 cp EXPECTED.TXT EXPECTED-UNIX.TXT